@@ -0,0 +1,82 @@
+package com.example.notes.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.SecretKey;
+import java.util.concurrent.TimeUnit;
+
+// JWT 热路径：签发、过滤器中的验证（命中缓存 / 首次解析）、声明提取。
+// legacyFilterPath 复现改造前过滤器的做法（每次调用重新构建密钥和解析器，validate/username/userId 各解析一次），作为对照
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-sec";
+
+    private JwtUtil jwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 86_400_000L, 10_000);
+        // 缓存容量为 0：每次 verify 都走完整的签名校验和解析
+        uncachedJwtUtil = new JwtUtil(SECRET, 86_400_000L, 0);
+        token = jwtUtil.generateToken("benchmark-user", 42L);
+        jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("benchmark-user", 42L);
+    }
+
+    @Benchmark
+    public Object verifyCached() {
+        return jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public Object verifyUncached() {
+        return uncachedJwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public void extractClaims(Blackhole bh) {
+        bh.consume(jwtUtil.getUsernameFromToken(token));
+        bh.consume(jwtUtil.getUserIdFromToken(token));
+    }
+
+    @Benchmark
+    public void legacyFilterPath(Blackhole bh) {
+        bh.consume(legacyParse(token).getExpiration());
+        bh.consume(legacyParse(token).getSubject());
+        bh.consume(legacyParse(token).get("userId", Long.class));
+    }
+
+    private static Claims legacyParse(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.notes.dto;
+
+import com.example.notes.entity.Note;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// 列表接口的 JSON 序列化：完整 Note 分页与 NoteSummary（内容预览）分页对比，页大小 10 / 100
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotePageJsonBenchmark {
+
+    private static final int CONTENT_LENGTH = 4000;
+    private static final int PREVIEW_LENGTH = 200;
+
+    @Param({"10", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<Note> notePage;
+    private Page<NoteSummary> summaryPage;
+
+    @Setup
+    public void setUp() {
+        // 与 Spring MVC 使用相同的构建方式（JavaTimeModule 等）
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        String content = "学习笔记内容 lorem ipsum dolor sit amet. ".repeat(CONTENT_LENGTH / 30);
+        LocalDateTime now = LocalDateTime.now();
+        List<Note> notes = new ArrayList<>(pageSize);
+        List<NoteSummary> summaries = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Note note = new Note();
+            note.setId((long) i);
+            note.setSubject("数学");
+            note.setTitle("第 " + i + " 章 笔记");
+            note.setContent(content);
+            note.setCategory("课堂笔记");
+            note.setTags(Set.of("复习", "重点"));
+            note.setIsFavorite(i % 3 == 0);
+            note.setIsPublic(false);
+            notes.add(note);
+
+            NoteSummary summary = new NoteSummary((long) i, 1L, note.getSubject(), note.getTitle(),
+                    note.getCategory(), note.getIsFavorite(), note.getIsPublic(), now, now,
+                    content.substring(0, PREVIEW_LENGTH));
+            summary.setTags(Set.of("复习", "重点"));
+            summaries.add(summary);
+        }
+        PageRequest pageable = PageRequest.of(0, pageSize);
+        notePage = new PageImpl<>(notes, pageable, 10_000);
+        summaryPage = new PageImpl<>(summaries, pageable, 10_000);
+    }
+
+    @Benchmark
+    public byte[] serializeNotePage() throws Exception {
+        return objectMapper.writeValueAsBytes(notePage);
+    }
+
+    @Benchmark
+    public byte[] serializeSummaryPage() throws Exception {
+        return objectMapper.writeValueAsBytes(summaryPage);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.notes.service;
+
+import com.example.notes.dto.AIRequest;
+import com.example.notes.search.ContextSelector;
+import com.example.notes.util.CircuitBreaker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// AI 问答在调用上游前后的本地开销：请求解析与缓存键计算、提示词构建（短笔记原样放入 / 长笔记做上下文选择）、
+// 以及 Gemini 响应的解析。不发起任何网络请求
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AIChatBenchmark {
+
+    private static final String QUESTION = "动态规划和递归有什么区别？什么时候应该用记忆化？";
+
+    private GeminiClient geminiClient;
+    private AIChatService chatService;
+    private AIRequest shortRequest;
+    private AIRequest longRequest;
+    private byte[] responseBody;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        CircuitBreaker breaker = new CircuitBreaker(20, 10, 0.5, Duration.ofSeconds(20), Duration.ofSeconds(30));
+        geminiClient = new GeminiClient(objectMapper, breaker, "bench", "gemini-2.0-flash",
+                "http://127.0.0.1:9/generate", "http://127.0.0.1:9/stream",
+                Duration.ofSeconds(5), Duration.ofSeconds(60), 32, 1);
+        AIAnswerCache answerCache = new AIAnswerCache(null, null, 10_000, Duration.ofDays(7), false);
+        chatService = new AIChatService(geminiClient, answerCache, null, new ContextSelector(1500, 400), 100);
+
+        shortRequest = request("递归是函数调用自身。动态规划把子问题的结果保存下来避免重复计算。");
+        StringBuilder longNote = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            longNote.append("第 ").append(i).append(" 段：");
+            longNote.append(i % 25 == 0
+                    ? "动态规划通过记忆化保存子问题结果，递归则可能重复求解同一个子问题。"
+                    : "本段讨论排序算法、图的遍历以及复杂度分析中的常见技巧。");
+            longNote.append('\n');
+        }
+        longRequest = request(longNote.toString());
+
+        String answer = "动态规划与递归的主要区别在于是否保存子问题的结果。".repeat(40);
+        responseBody = objectMapper.writeValueAsString(Map.of("candidates", List.of(
+                Map.of("content", Map.of("parts", List.of(Map.of("text", answer)), "role", "model"),
+                        "finishReason", "STOP"))))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static AIRequest request(String noteContent) {
+        AIRequest request = new AIRequest();
+        request.setQuestion(QUESTION);
+        request.setNoteContent(noteContent);
+        return request;
+    }
+
+    @TearDown
+    public void tearDown() {
+        geminiClient.shutdown();
+    }
+
+    @Benchmark
+    public String shortNotePrompt() {
+        return chatService.buildPrompt(chatService.prepare(1L, shortRequest));
+    }
+
+    @Benchmark
+    public String longNotePrompt() {
+        return chatService.buildPrompt(chatService.prepare(1L, longRequest));
+    }
+
+    @Benchmark
+    public String parseResponse() {
+        return geminiClient.parseAnswer(responseBody);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.notes.service;
+
+import com.example.notes.NotesApplication;
+import com.example.notes.entity.Note;
+import com.example.notes.entity.User;
+import com.example.notes.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// 批量导入与逐条创建的写入吞吐对比（每秒写入行数）：同样 500 条带标签的笔记，
+// 一次 NoteImportService.importNotes（JDBC 批处理）对比 500 次 NoteService.createNote（每条一个事务）
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NoteImportBenchmark {
+
+    private static final int ROWS = 500;
+
+    private ConfigurableApplicationContext context;
+    private NoteImportService noteImportService;
+    private NoteService noteService;
+    private Long userId;
+    private byte[] importBody;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // 安全配置依赖 Spring MVC，不能用非 Web 上下文启动，这里用随机端口启动内嵌服务器
+        context = new SpringApplicationBuilder(NotesApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:bench-import;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--jwt.secret=benchmark-secret-benchmark-secret-benchmark-secret-benchmark-sec",
+                        "--gemini.api.key=bench");
+        noteImportService = context.getBean(NoteImportService.class);
+        noteService = context.getBean(NoteService.class);
+        userId = context.getBean(UserRepository.class)
+                .save(new User("bench", "bench@example.com", "not-a-real-hash"))
+                .getId();
+
+        List<Map<String, Object>> notes = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Map<String, Object> note = new LinkedHashMap<>();
+            note.put("subject", subject(i));
+            note.put("title", title(i));
+            note.put("content", content(i));
+            note.put("category", "课堂笔记");
+            note.put("tags", List.of("复习", "tag-" + i % 20));
+            notes.add(note);
+        }
+        importBody = new ObjectMapper().writeValueAsBytes(notes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Object bulkImport() throws Exception {
+        return noteImportService.importNotes(userId, new ByteArrayInputStream(importBody));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void createNoteLoop(Blackhole bh) {
+        for (int i = 0; i < ROWS; i++) {
+            Note note = new Note();
+            note.setSubject(subject(i));
+            note.setTitle(title(i));
+            note.setContent(content(i));
+            note.setCategory("课堂笔记");
+            note.setTags(Set.of("复习", "tag-" + i % 20));
+            bh.consume(noteService.createNote(userId, note));
+        }
+    }
+
+    private static String subject(int i) {
+        return i % 2 == 0 ? "数学" : "计算机";
+    }
+
+    private static String title(int i) {
+        return "批量导入笔记 " + i;
+    }
+
+    private static String content(int i) {
+        return ("第 " + i + " 条笔记：动态规划保存子问题的结果，避免递归中的重复计算。").repeat(10);
+    }
+}
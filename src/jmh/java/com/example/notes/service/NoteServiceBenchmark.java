@@ -0,0 +1,131 @@
+package com.example.notes.service;
+
+import com.example.notes.NotesApplication;
+import com.example.notes.entity.Note;
+import com.example.notes.entity.User;
+import com.example.notes.repository.NoteBatchRepository;
+import com.example.notes.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// NoteService 列表与搜索：在内嵌 H2（MySQL 兼容模式）中为一个用户预置 1 万 / 10 万条笔记，
+// 对比 offset 分页（首页 / 深页）、游标分页和关键词搜索
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NoteServiceBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int SEED_BATCH = 1000;
+    private static final String[] SUBJECTS = {"数学", "物理", "计算机", "英语", "历史"};
+    private static final String[] TOPICS = {"递归", "动态规划", "牛顿定律", "虚拟语气", "工业革命",
+            "binary search", "hash table", "integral", "entropy", "thermodynamics"};
+
+    @Param({"10000", "100000"})
+    public int noteCount;
+
+    private ConfigurableApplicationContext context;
+    private NoteService noteService;
+    private Long userId;
+    private int deepPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // 安全配置依赖 Spring MVC，不能用非 Web 上下文启动，这里用随机端口启动内嵌服务器
+        context = new SpringApplicationBuilder(NotesApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--jwt.secret=benchmark-secret-benchmark-secret-benchmark-secret-benchmark-sec",
+                        "--gemini.api.key=bench");
+        noteService = context.getBean(NoteService.class);
+
+        User user = context.getBean(UserRepository.class)
+                .save(new User("bench", "bench@example.com", "not-a-real-hash"));
+        userId = user.getId();
+        seed(context.getBean(NoteBatchRepository.class), context.getBean(PlatformTransactionManager.class));
+        deepPage = noteCount / PAGE_SIZE / 2;
+    }
+
+    // 分批写入，避免单个事务持有全部数据
+    private void seed(NoteBatchRepository batchRepository, PlatformTransactionManager transactionManager) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        LocalDateTime base = LocalDateTime.now().minusDays(365);
+        for (int from = 0; from < noteCount; from += SEED_BATCH) {
+            List<Note> batch = new ArrayList<>(SEED_BATCH);
+            for (int i = from; i < Math.min(from + SEED_BATCH, noteCount); i++) {
+                Note note = new Note();
+                String topic = TOPICS[i % TOPICS.length];
+                note.setSubject(SUBJECTS[i % SUBJECTS.length]);
+                note.setTitle(topic + " 笔记 " + i);
+                note.setContent(("关于" + topic + "的学习要点和例题整理，第 " + i + " 篇。 ").repeat(20));
+                note.setCategory(i % 2 == 0 ? "课堂笔记" : "复习");
+                note.setIsFavorite(i % 7 == 0);
+                note.setIsPublic(false);
+                note.setCreatedAt(base.plusMinutes(i));
+                note.setUpdatedAt(base.plusMinutes(i));
+                batch.add(note);
+            }
+            transaction.executeWithoutResult(status -> batchRepository.insertAll(userId, batch));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object listFirstPage() {
+        return noteService.getUserNotes(userId, PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object listDeepPage() {
+        return noteService.getUserNotes(userId, PageRequest.of(deepPage, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object listFirstPageByCursor() {
+        return noteService.getUserNotesAfter(userId, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Object searchKeyword() {
+        return noteService.searchUserNotes(userId, "动态规划", null, null, null, PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object searchKeywordWithFilter() {
+        return noteService.searchUserNotes(userId, "hash table", null, "课堂笔记", null, PageRequest.of(0, PAGE_SIZE));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.notes.loadtest;
+
+import com.example.notes.entity.Note;
+import com.example.notes.entity.User;
+import com.example.notes.repository.NoteBatchRepository;
+import com.example.notes.repository.UserRepository;
+import com.example.notes.service.TakenNamesFilter;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// 合成数据生成器：按参数创建用户和笔记（科目、分类、标签基数、内容长度可配），结果由种子决定，可重复。
+// 直接写库（JDBC 批量插入），不经过 HTTP，因此不会产生变更日志和缓存副作用
+public class DataGenerator {
+
+    public static final String PASSWORD = "loadtest-password";
+
+    static final String[] SUBJECTS = {"数学", "物理", "化学", "计算机", "英语", "历史", "生物", "经济"};
+    static final String[] CATEGORIES = {"课堂笔记", "复习", "读书笔记", "错题", "项目", "随笔"};
+    static final String[] VOCABULARY = {
+            "递归", "动态规划", "贪心", "二分查找", "哈希表", "红黑树", "图遍历", "最短路径", "拓扑排序", "并查集",
+            "导数", "积分", "极限", "矩阵", "特征值", "概率", "期望", "方差", "线性回归", "梯度下降",
+            "牛顿定律", "动量", "能量守恒", "电磁感应", "热力学", "熵", "波动", "光的折射", "相对论", "量子",
+            "binary", "search", "cache", "index", "latency", "throughput", "thread", "lock", "queue", "stream",
+            "vocabulary", "grammar", "essay", "reading", "revolution", "dynasty", "economy", "market", "cell", "gene"
+    };
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final ApplicationContext context;
+    private final LoadTestOptions options;
+    private final Random random;
+
+    public DataGenerator(ApplicationContext context, LoadTestOptions options) {
+        this.context = context;
+        this.options = options;
+        this.random = new Random(options.seed());
+    }
+
+    static String tag(int index) {
+        return "tag-" + index;
+    }
+
+    public static String username(int index) {
+        return "lt_user_" + index;
+    }
+
+    // 创建用户及其笔记，返回每个用户的会话信息（尚未登录）
+    public List<Session> generate() {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        NoteBatchRepository noteBatchRepository = context.getBean(NoteBatchRepository.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        // 所有用户使用同一个密码，只做一次 BCrypt
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+
+        List<Session> sessions = new ArrayList<>(options.users());
+        for (int u = 0; u < options.users(); u++) {
+            User user = userRepository.save(new User(username(u), username(u) + "@loadtest.local", passwordHash));
+            Session session = new Session(user.getId(), user.getUsername(), user.getEmail());
+
+            for (int from = 0; from < options.notesPerUser(); from += BATCH_SIZE) {
+                int size = Math.min(BATCH_SIZE, options.notesPerUser() - from);
+                List<Note> batch = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    batch.add(note(from + i));
+                }
+                transaction.executeWithoutResult(status -> noteBatchRepository.insertAll(user.getId(), batch));
+                batch.forEach(note -> session.addSeededNote(note.getId()));
+            }
+            sessions.add(session);
+        }
+
+        // 过滤器在应用启动时已构建，直接写库的用户需要重建后才能被查重看到
+        context.getBean(TakenNamesFilter.class).rebuild();
+        return sessions;
+    }
+
+    Note note(int index) {
+        Note note = new Note();
+        note.setSubject(SUBJECTS[random.nextInt(SUBJECTS.length)]);
+        note.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        note.setTitle(words(3) + " " + index);
+        note.setContent(content(options.contentSize()));
+        note.setTags(tags());
+        note.setIsFavorite(random.nextInt(10) == 0);
+        note.setIsPublic(random.nextInt(20) == 0);
+        LocalDateTime updatedAt = LocalDateTime.now().minusMinutes(random.nextInt(60 * 24 * 365));
+        note.setCreatedAt(updatedAt.minusDays(random.nextInt(30)));
+        note.setUpdatedAt(updatedAt);
+        return note;
+    }
+
+    String content(int size) {
+        StringBuilder content = new StringBuilder(size + 16);
+        while (content.length() < size) {
+            content.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+            content.append(random.nextInt(12) == 0 ? "。\n" : " ");
+        }
+        content.setLength(size);
+        return content.toString();
+    }
+
+    private String words(int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                words.append(' ');
+            }
+            words.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+        }
+        return words.toString();
+    }
+
+    // 标签按幂分布选取，少数热门标签覆盖大部分笔记，接近真实使用情况
+    private Set<String> tags() {
+        Set<String> tags = new HashSet<>();
+        int count = Math.min(options.tagsPerNote(), options.tagCardinality());
+        while (tags.size() < count) {
+            int index = (int) (options.tagCardinality() * Math.pow(random.nextDouble(), 2));
+            tags.add(tag(index));
+        }
+        return tags;
+    }
+}
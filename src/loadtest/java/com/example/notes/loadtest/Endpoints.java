@@ -0,0 +1,288 @@
+package com.example.notes.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// NoteController / AuthController / AIController 的每个路由对应一个操作，名称为 "方法 路由模板"，
+// 报告中按这个名称分别统计。操作根据会话构建请求，返回 null 表示当前无法执行（例如没有可删除的笔记）
+public class Endpoints {
+
+    // 一次待发送的请求，以及收到响应后对会话状态的更新
+    public static final class Call {
+        final HttpRequest request;
+        final ResponseHandler onResponse;
+
+        Call(HttpRequest request, ResponseHandler onResponse) {
+            this.request = request;
+            this.onResponse = onResponse;
+        }
+    }
+
+    @FunctionalInterface
+    public interface ResponseHandler {
+        void handle(int status, byte[] body) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Operation {
+        Call prepare(Session session) throws IOException, InterruptedException;
+    }
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    private static final ResponseHandler IGNORE = (status, body) -> { };
+    private static final String[] QUESTIONS = {
+            "这篇笔记的重点是什么？", "请总结一下主要内容", "有哪些容易出错的地方？",
+            "能举一个例子吗？", "和前面学过的内容有什么联系？"
+    };
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int contentSize;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private final AtomicLong registrations = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    public Endpoints(HttpClient client, String baseUrl, int contentSize) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.contentSize = contentSize;
+        registerNoteOperations();
+        registerAuthOperations();
+        registerAIOperations();
+    }
+
+    public boolean contains(String name) {
+        return operations.containsKey(name);
+    }
+
+    public Call prepare(String name, Session session) throws IOException, InterruptedException {
+        return operations.get(name).prepare(session);
+    }
+
+    private void registerNoteOperations() {
+        operations.put("GET /api/notes", s -> get(s, "/api/notes?size=20&page=" + random(5)));
+        operations.put("GET /api/notes?cursor", s -> get(s, "/api/notes?size=20&cursor="));
+        operations.put("GET /api/notes/{id}", s -> get(s, "/api/notes/" + s.randomSeededNote()));
+        operations.put("GET /api/notes/search", s -> get(s, "/api/notes/search?size=20&keyword=" + encode(word())));
+        operations.put("POST /api/notes", s -> new Call(json(s, "POST", "/api/notes", newNote()),
+                (status, body) -> {
+                    if (status == 201) {
+                        s.addCreatedNote(objectMapper.readTree(body).path("id").asLong());
+                    }
+                }));
+        operations.put("POST /api/notes/bulk", s -> {
+            List<Map<String, Object>> notes = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                notes.add(newNote());
+            }
+            return new Call(json(s, "POST", "/api/notes/bulk", notes), (status, body) -> {
+                if (status == 200) {
+                    for (JsonNode item : objectMapper.readTree(body).path("items")) {
+                        if (item.hasNonNull("id")) {
+                            s.addCreatedNote(item.get("id").asLong());
+                        }
+                    }
+                }
+            });
+        });
+        operations.put("PUT /api/notes/{id}", s -> call(json(s, "PUT", "/api/notes/" + s.randomSeededNote(), newNote())));
+        operations.put("DELETE /api/notes/{id}", s -> {
+            Long id = s.pollCreatedNote();
+            return id == null ? null : call(request(s, "/api/notes/" + id).DELETE().build());
+        });
+        operations.put("DELETE /api/notes/batch", s -> {
+            List<Long> ids = new ArrayList<>();
+            Long id;
+            while (ids.size() < 3 && (id = s.pollCreatedNote()) != null) {
+                ids.add(id);
+            }
+            return ids.isEmpty() ? null : call(json(s, "DELETE", "/api/notes/batch", ids));
+        });
+        operations.put("GET /api/notes/export", s -> get(s, "/api/notes/export"));
+        operations.put("GET /api/notes/subjects", s -> get(s, "/api/notes/subjects"));
+        operations.put("GET /api/notes/tags", s -> get(s, "/api/notes/tags"));
+        operations.put("GET /api/notes/categories", s -> get(s, "/api/notes/categories"));
+        operations.put("GET /api/notes/facets", s -> get(s, "/api/notes/facets"));
+        operations.put("GET /api/notes/changes", s -> {
+            String since = s.getSyncToken();
+            String path = since == null ? "/api/notes/changes" : "/api/notes/changes?since=" + encode(since);
+            return new Call(request(s, path).GET().build(), (status, body) -> {
+                if (status == 200) {
+                    s.setSyncToken(objectMapper.readTree(body).path("nextToken").asText(null));
+                } else if (status == 410) {
+                    s.setSyncToken(null);
+                }
+            });
+        });
+        operations.put("GET /api/notes/subject/{subject}", s -> get(s, "/api/notes/subject/"
+                + encode(pick(DataGenerator.SUBJECTS)) + "?size=20"));
+        operations.put("GET /api/notes/category/{category}", s -> get(s, "/api/notes/category/"
+                + encode(pick(DataGenerator.CATEGORIES)) + "?size=20"));
+        operations.put("GET /api/notes/tag/{tag}", s -> get(s, "/api/notes/tag/"
+                + DataGenerator.tag(random(10)) + "?size=20"));
+        operations.put("PUT /api/notes/{id}/favorite", s -> call(request(s, "/api/notes/" + s.randomSeededNote() + "/favorite")
+                .PUT(HttpRequest.BodyPublishers.noBody()).build()));
+        operations.put("PUT /api/notes/{id}/public", s -> call(request(s, "/api/notes/" + s.randomSeededNote() + "/public")
+                .PUT(HttpRequest.BodyPublishers.noBody()).build()));
+        operations.put("GET /api/notes/favorites", s -> get(s, "/api/notes/favorites?size=20"));
+        operations.put("GET /api/notes/stats", s -> get(s, "/api/notes/stats"));
+        operations.put("GET /api/notes/recent/updated", s -> get(s, "/api/notes/recent/updated"));
+        operations.put("GET /api/notes/recent/created", s -> get(s, "/api/notes/recent/created"));
+        operations.put("GET /api/notes/public", s -> get(null, "/api/notes/public?size=20&page=" + random(3)));
+        operations.put("GET /api/notes/public/mine", s -> get(s, "/api/notes/public/mine?size=20"));
+        operations.put("GET /api/notes/test", s -> get(s, "/api/notes/test"));
+    }
+
+    private void registerAuthOperations() {
+        operations.put("POST /api/auth/register", s -> {
+            String username = "lt_" + runId + "_" + registrations.incrementAndGet();
+            return call(jsonAs(null, "POST", "/api/auth/register", Map.of(
+                    "username", username,
+                    "email", username + "@loadtest.local",
+                    "password", DataGenerator.PASSWORD)));
+        });
+        operations.put("POST /api/auth/login", s -> call(jsonAs(null, "POST", "/api/auth/login", credentials(s))));
+        operations.put("GET /api/auth/profile", s -> get(s, "/api/auth/profile"));
+        operations.put("PUT /api/auth/profile", s -> call(json(s, "PUT", "/api/auth/profile", Map.of(
+                "displayName", "压测用户 " + random(1000),
+                "avatarUrl", "https://example.com/avatar/" + s.getUserId() + ".png"))));
+        // 修改密码和登出都会吊销所用的令牌，因此先单独登录一次拿一个一次性令牌（这次登录不计入统计）；
+        // 新旧密码相同，保证其他线程仍能用原密码登录
+        operations.put("PUT /api/auth/password", s -> {
+            String token = login(s);
+            return call(jsonAs(token, "PUT", "/api/auth/password", Map.of(
+                    "oldPassword", DataGenerator.PASSWORD,
+                    "newPassword", DataGenerator.PASSWORD)));
+        });
+        operations.put("GET /api/auth/check-username/{username}", s -> get(null, "/api/auth/check-username/"
+                + (random(2) == 0 ? s.getUsername() : "lt_free_" + random(1_000_000))));
+        operations.put("GET /api/auth/check-email/{email}", s -> get(null, "/api/auth/check-email/"
+                + encode(random(2) == 0 ? s.getEmail() : "free" + random(1_000_000) + "@loadtest.local")));
+        operations.put("POST /api/auth/logout", s -> {
+            String token = login(s);
+            return call(requestAs(token, "/api/auth/logout").POST(HttpRequest.BodyPublishers.noBody()).build());
+        });
+        operations.put("GET /api/auth/test", s -> get(null, "/api/auth/test"));
+    }
+
+    private void registerAIOperations() {
+        operations.put("POST /api/ai/chat", s -> call(json(s, "POST", "/api/ai/chat", Map.of(
+                "noteId", s.randomSeededNote(),
+                "question", pick(QUESTIONS)))));
+        operations.put("POST /api/ai/chat/stream", s -> call(json(s, "POST", "/api/ai/chat/stream", Map.of(
+                "noteId", s.randomSeededNote(),
+                "question", pick(QUESTIONS)))));
+        // 热点问题：所有用户在同一秒内问同一个问题，缓存未命中时并发的相同请求应只触发一次上游调用
+        operations.put("POST /api/ai/chat [hot]", s -> call(json(s, "POST", "/api/ai/chat", Map.of(
+                "noteContent", "递归与动态规划：动态规划保存子问题的结果，避免递归中的重复计算。",
+                "question", "热点问题 " + System.currentTimeMillis() / 1000))));
+        operations.put("GET /api/ai/cache/stats", s -> get(s, "/api/ai/cache/stats"));
+        operations.put("GET /api/ai/resilience/stats", s -> get(s, "/api/ai/resilience/stats"));
+        operations.put("GET /api/ai/test", s -> get(s, "/api/ai/test"));
+    }
+
+    // 登录并返回令牌（不计入统计）
+    public String login(Session session) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(jsonAs(null, "POST", "/api/auth/login", credentials(session)),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Login failed for " + session.getUsername() + ": HTTP " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).path("token").asText();
+    }
+
+    // 以会话身份读取一个 JSON 接口（不计入统计），用于在报告中附带服务端统计
+    public JsonNode fetch(Session session, String path) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request(session, path).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        return objectMapper.readTree(response.body());
+    }
+
+    private static Map<String, Object> credentials(Session session) {
+        return Map.of("usernameOrEmail", session.getUsername(), "password", DataGenerator.PASSWORD);
+    }
+
+    private Map<String, Object> newNote() {
+        Map<String, Object> note = new LinkedHashMap<>();
+        note.put("subject", pick(DataGenerator.SUBJECTS));
+        note.put("title", word() + " " + word());
+        note.put("content", content());
+        note.put("category", pick(DataGenerator.CATEGORIES));
+        note.put("tags", List.of(DataGenerator.tag(random(10)), DataGenerator.tag(random(50))));
+        return note;
+    }
+
+    // 与 DataGenerator 的内容相同的词表，长度不超过笔记内容的校验上限
+    private String content() {
+        int size = Math.min(contentSize, 10000);
+        StringBuilder content = new StringBuilder(size + 16);
+        while (content.length() < size) {
+            content.append(word()).append(' ');
+        }
+        content.setLength(size);
+        return content.toString();
+    }
+
+    private Call get(Session session, String path) {
+        return call(request(session, path).GET().build());
+    }
+
+    private static Call call(HttpRequest request) {
+        return new Call(request, IGNORE);
+    }
+
+    private HttpRequest json(Session session, String method, String path, Object body) throws IOException {
+        return jsonAs(session != null ? session.getToken() : null, method, path, body);
+    }
+
+    private HttpRequest jsonAs(String token, String method, String path, Object body) throws IOException {
+        return requestAs(token, path)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest.Builder request(Session session, String path) {
+        return requestAs(session != null ? session.getToken() : null, path);
+    }
+
+    private HttpRequest.Builder requestAs(String token, String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    private static String pick(String[] values) {
+        return values[random(values.length)];
+    }
+
+    private static String word() {
+        return pick(DataGenerator.VOCABULARY);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.notes.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 本地 Gemini 桩服务：/generate 对应 generateContent，/stream 对应 streamGenerateContent?alt=sse。
+// 按配置的延迟返回固定回答，并按 faultRate 随机返回 503，用于观察熔断器行为；统计上游实际收到的调用次数
+public class GeminiStub implements AutoCloseable {
+
+    private static final int STREAM_CHUNKS = 8;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Duration latency;
+    private final double faultRate;
+    private final byte[] answer;
+    private final List<byte[]> streamEvents;
+    private final AtomicLong generateCalls = new AtomicLong();
+    private final AtomicLong streamCalls = new AtomicLong();
+    private final AtomicLong injectedFaults = new AtomicLong();
+
+    public GeminiStub(Duration latency, double faultRate) throws IOException {
+        this.latency = latency;
+        this.faultRate = faultRate;
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        String text = "这是压测桩服务返回的回答。".repeat(20);
+        this.answer = objectMapper.writeValueAsBytes(response(text));
+        this.streamEvents = new ArrayList<>();
+        int chunk = (text.length() + STREAM_CHUNKS - 1) / STREAM_CHUNKS;
+        for (int i = 0; i < text.length(); i += chunk) {
+            String part = text.substring(i, Math.min(text.length(), i + chunk));
+            streamEvents.add(("data: " + objectMapper.writeValueAsString(response(part)) + "\n\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "gemini-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/generate", this::generate);
+        server.createContext("/stream", this::stream);
+        server.start();
+    }
+
+    private static Map<String, Object> response(String text) {
+        Map<String, Object> candidate = new LinkedHashMap<>();
+        candidate.put("content", Map.of("role", "model", "parts", List.of(Map.of("text", text))));
+        candidate.put("finishReason", "STOP");
+        return Map.of("candidates", List.of(candidate));
+    }
+
+    public String generateUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/generate";
+    }
+
+    public String streamUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/stream";
+    }
+
+    public long generateCalls() { return generateCalls.get(); }
+    public long streamCalls() { return streamCalls.get(); }
+    public long injectedFaults() { return injectedFaults.get(); }
+
+    private void generate(HttpExchange exchange) throws IOException {
+        generateCalls.incrementAndGet();
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            sleep(latency);
+            if (injectFault(exchange)) {
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, answer.length);
+            exchange.getResponseBody().write(answer);
+        }
+    }
+
+    // 总延迟均摊到各个事件之间，模拟逐段生成
+    private void stream(HttpExchange exchange) throws IOException {
+        streamCalls.incrementAndGet();
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            if (injectFault(exchange)) {
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            Duration gap = latency.dividedBy(streamEvents.size());
+            for (byte[] event : streamEvents) {
+                sleep(gap);
+                out.write(event);
+                out.flush();
+            }
+        }
+    }
+
+    private boolean injectFault(HttpExchange exchange) throws IOException {
+        if (faultRate <= 0 || ThreadLocalRandom.current().nextDouble() >= faultRate) {
+            return false;
+        }
+        injectedFaults.incrementAndGet();
+        exchange.sendResponseHeaders(503, -1);
+        return true;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
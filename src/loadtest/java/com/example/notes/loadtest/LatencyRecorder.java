@@ -0,0 +1,123 @@
+package com.example.notes.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// 按接口记录延迟（微秒，HdrHistogram 3 位有效数字）和响应状态码分布，压测结束后输出：
+// 控制台汇总表、report.json（机器可读），以及每个接口一份 .hgrm 百分位分布文件（单位毫秒，可用 HdrHistogram 绘图工具打开）
+public class LatencyRecorder {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private volatile long startNanos = System.nanoTime();
+    private volatile long stopNanos;
+
+    private static final class Endpoint {
+        final Histogram histogram = new ConcurrentHistogram(3);
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final LongAdder failures = new LongAdder();
+    }
+
+    // expectedIntervalMicros > 0 时（定速模式）按预期发送间隔补偿协调遗漏，避免慢响应拖住发送节奏后低估尾延迟
+    public void record(String endpoint, int status, long latencyMicros, long expectedIntervalMicros) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        if (expectedIntervalMicros > 0) {
+            stats.histogram.recordValueWithExpectedInterval(latencyMicros, expectedIntervalMicros);
+        } else {
+            stats.histogram.recordValue(latencyMicros);
+        }
+        stats.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    // 请求未得到 HTTP 响应（连接失败、超时等）
+    public void recordFailure(String endpoint) {
+        endpoints.computeIfAbsent(endpoint, name -> new Endpoint()).failures.increment();
+    }
+
+    // 预热结束时清空已记录的数据
+    public void reset() {
+        endpoints.clear();
+        startNanos = System.nanoTime();
+        stopNanos = 0;
+    }
+
+    // 测量结束，吞吐按开始到此刻的时长计算
+    public void stop() {
+        stopNanos = System.nanoTime();
+    }
+
+    public Map<String, Object> summary() {
+        long end = stopNanos != 0 ? stopNanos : System.nanoTime();
+        double seconds = (end - startNanos) / 1e9;
+        Map<String, Object> summary = new TreeMap<>();
+        endpoints.forEach((name, stats) -> {
+            Histogram h = stats.histogram.copy();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("count", h.getTotalCount());
+            row.put("throughput", h.getTotalCount() / seconds);
+            row.put("meanMs", h.getMean() / 1000.0);
+            row.put("p50Ms", h.getValueAtPercentile(50) / 1000.0);
+            row.put("p95Ms", h.getValueAtPercentile(95) / 1000.0);
+            row.put("p99Ms", h.getValueAtPercentile(99) / 1000.0);
+            row.put("p999Ms", h.getValueAtPercentile(99.9) / 1000.0);
+            row.put("maxMs", h.getMaxValue() / 1000.0);
+            Map<String, Long> statuses = new TreeMap<>();
+            stats.statuses.forEach((status, count) -> statuses.put(String.valueOf(status), count.sum()));
+            row.put("statuses", statuses);
+            row.put("failures", stats.failures.sum());
+            summary.put(name, row);
+        });
+        return summary;
+    }
+
+    public void printTable(PrintStream out) {
+        out.printf("%-44s %8s %9s %9s %9s %9s %9s %12s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "non-2xx/fail");
+        summary().forEach((name, value) -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> row = (Map<String, Object>) value;
+            @SuppressWarnings("unchecked")
+            Map<String, Long> statuses = (Map<String, Long>) row.get("statuses");
+            long errors = (long) row.get("failures") + statuses.entrySet().stream()
+                    .filter(e -> !e.getKey().startsWith("2") && !e.getKey().equals("304"))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            out.printf("%-44s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %12d%n", name, row.get("count"),
+                    row.get("throughput"), row.get("p50Ms"), row.get("p95Ms"), row.get("p99Ms"),
+                    row.get("maxMs"), errors);
+        });
+    }
+
+    public void writeReport(Path dir, Map<String, Object> metadata) throws IOException {
+        Files.createDirectories(dir);
+
+        Map<String, Object> report = new LinkedHashMap<>(metadata);
+        report.put("endpoints", summary());
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(dir.resolve("report.json").toFile(), report);
+
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Path file = dir.resolve(fileName(entry.getKey()) + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+                entry.getValue().histogram.copy().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    // "GET /api/notes/{id}" -> "GET_api_notes_id"
+    static String fileName(String endpoint) {
+        return endpoint.replaceAll("[^A-Za-z0-9]+", "_").replaceAll("^_+|_+$", "");
+    }
+}
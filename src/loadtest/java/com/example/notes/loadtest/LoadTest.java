@@ -0,0 +1,101 @@
+package com.example.notes.loadtest;
+
+import com.example.notes.NotesApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 接口级压测入口：启动 Gemini 桩服务和被测应用（内嵌 H2，随机端口），生成合成数据，
+// 按场景运行负载，最后输出每个接口的延迟百分位和吞吐。
+//   mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--scenario=mixed --users=50 --duration=120s"
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        Scenario scenario = Scenario.named(options.scenario());
+        if (options.users() < 1 || options.notesPerUser() < 1 || options.tagCardinality() < 1) {
+            throw new IllegalArgumentException("--users, --notes-per-user and --tags must be at least 1");
+        }
+
+        try (GeminiStub gemini = new GeminiStub(options.aiLatency(), options.aiFaultRate())) {
+            System.setProperty("spring.devtools.restart.enabled", "false");
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(NotesApplication.class)
+                    .run(applicationArgs(options, gemini));
+            try {
+                run(context, options, scenario, gemini);
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static void run(ConfigurableApplicationContext context, LoadTestOptions options,
+                            Scenario scenario, GeminiStub gemini) throws Exception {
+        Workload.log("seeding " + options.users() + " users x " + options.notesPerUser() + " notes");
+        List<Session> sessions = new DataGenerator(context, options).generate();
+
+        String baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Endpoints endpoints = new Endpoints(client, baseUrl, options.contentSize());
+        scenario.validate(endpoints);
+        for (Session session : sessions) {
+            session.setToken(endpoints.login(session));
+        }
+
+        LatencyRecorder recorder = new LatencyRecorder();
+        new Workload(client, endpoints, sessions, recorder, options).run(scenario);
+
+        // 附带上游桩的调用计数和服务端的缓存 / 熔断统计：上游调用数远小于 AI 请求数说明缓存和单飞合并在起作用
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("scenario", scenario.getName());
+        metadata.put("options", options.asMap());
+        metadata.put("applicationArgs", options.applicationArgs());
+        metadata.put("geminiStub", Map.of(
+                "generateCalls", gemini.generateCalls(),
+                "streamCalls", gemini.streamCalls(),
+                "injectedFaults", gemini.injectedFaults()));
+        metadata.put("aiCache", endpoints.fetch(sessions.get(0), "/api/ai/cache/stats"));
+        metadata.put("aiResilience", endpoints.fetch(sessions.get(0), "/api/ai/resilience/stats"));
+
+        recorder.printTable(System.out);
+        System.out.println("gemini stub: " + metadata.get("geminiStub"));
+        recorder.writeReport(options.reportDir(), metadata);
+        Workload.log("report written to " + options.reportDir().toAbsolutePath());
+    }
+
+    // 被测应用的配置：内嵌数据库、随机端口、Gemini 指向本地桩服务。
+    // AI 限流默认放宽，否则少量压测用户很快就会被限流；命令行中的同名参数优先
+    private static String[] applicationArgs(LoadTestOptions options, GeminiStub gemini) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("server.port", "0");
+        properties.put("jwt.secret", "loadtest-secret-loadtest-secret-loadtest-secret-loadtest-secret!");
+        properties.put("gemini.api.key", "loadtest");
+        properties.put("gemini.api.url", gemini.generateUrl());
+        properties.put("gemini.api.stream-url", gemini.streamUrl());
+        properties.put("app.ai.rate-limit.capacity", "1000000");
+
+        for (String arg : options.applicationArgs()) {
+            int eq = arg.indexOf('=');
+            properties.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return properties.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+    }
+}
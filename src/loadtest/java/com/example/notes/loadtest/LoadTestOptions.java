@@ -0,0 +1,91 @@
+package com.example.notes.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 压测参数，命令行形式 --name=value。不认识的参数原样传给被测应用（例如 --app.ai.rate-limit.capacity=100）
+public class LoadTestOptions {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("scenario", "mixed");
+        DEFAULTS.put("users", "20");
+        DEFAULTS.put("notes-per-user", "500");
+        DEFAULTS.put("tags", "50");
+        DEFAULTS.put("tags-per-note", "3");
+        DEFAULTS.put("content-size", "2000");
+        DEFAULTS.put("concurrency", "32");
+        DEFAULTS.put("rate", "0");
+        DEFAULTS.put("warmup", "15s");
+        DEFAULTS.put("duration", "60s");
+        DEFAULTS.put("ai-latency", "300ms");
+        DEFAULTS.put("ai-fault-rate", "0");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("report-dir", "target/loadtest");
+    }
+
+    private final Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+    private final List<String> applicationArgs = new ArrayList<>();
+
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (DEFAULTS.containsKey(name)) {
+                options.values.put(name, arg.substring(arg.indexOf('=') + 1));
+            } else {
+                options.applicationArgs.add(arg);
+            }
+        }
+        return options;
+    }
+
+    public String scenario() { return values.get("scenario"); }
+    public int users() { return integer("users"); }
+    public int notesPerUser() { return integer("notes-per-user"); }
+    public int tagCardinality() { return integer("tags"); }
+    public int tagsPerNote() { return integer("tags-per-note"); }
+    public int contentSize() { return integer("content-size"); }
+    public int concurrency() { return integer("concurrency"); }
+
+    // 目标总吞吐（请求/秒），0 表示闭环压测（每个工作线程收到响应后立即发下一个请求）
+    public double rate() { return Double.parseDouble(values.get("rate")); }
+
+    public Duration warmup() { return duration("warmup"); }
+    public Duration duration() { return duration("duration"); }
+    public Duration aiLatency() { return duration("ai-latency"); }
+    public double aiFaultRate() { return Double.parseDouble(values.get("ai-fault-rate")); }
+    public long seed() { return Long.parseLong(values.get("seed")); }
+    public Path reportDir() { return Path.of(values.get("report-dir")); }
+    public List<String> applicationArgs() { return applicationArgs; }
+
+    public Map<String, String> asMap() {
+        return values;
+    }
+
+    private int integer(String name) {
+        return Integer.parseInt(values.get(name));
+    }
+
+    // 支持 500ms / 15s / 2m 这样的写法
+    private Duration duration(String name) {
+        String value = values.get(name).trim().toLowerCase();
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration for --" + name + ": " + value);
+        };
+    }
+}
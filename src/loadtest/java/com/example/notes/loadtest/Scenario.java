@@ -0,0 +1,150 @@
+package com.example.notes.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// 压测场景：一个或多个阶段，每个阶段是一组按权重随机选取的操作。测量时长在各阶段之间平均分配，
+// 多阶段场景的报告按 "[阶段] 操作" 分别统计，便于对比同一接口在不同负载下的延迟
+public class Scenario {
+
+    public static final class Phase {
+        private final String label;
+        private final String[] operations;
+        private final int[] cumulativeWeights;
+
+        Phase(String label, Map<String, Integer> weights) {
+            this.label = label;
+            this.operations = weights.keySet().toArray(new String[0]);
+            this.cumulativeWeights = new int[operations.length];
+            int total = 0;
+            for (int i = 0; i < operations.length; i++) {
+                total += weights.get(operations[i]);
+                cumulativeWeights[i] = total;
+            }
+        }
+
+        public String getLabel() { return label; }
+
+        public String pick(Random random) {
+            int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (r < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            throw new IllegalStateException("unreachable");
+        }
+    }
+
+    private final String name;
+    private final List<Phase> phases = new ArrayList<>();
+
+    private Scenario(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+    public List<Phase> getPhases() { return phases; }
+
+    public static Scenario named(String name) {
+        return switch (name) {
+            case "mixed" -> mixed();
+            case "login-storm" -> loginStorm();
+            case "ai-burst" -> aiBurst();
+            default -> throw new IllegalArgumentException(
+                    "Unknown scenario '" + name + "', expected mixed, login-storm or ai-burst");
+        };
+    }
+
+    // 检查场景中的操作都已定义
+    public void validate(Endpoints endpoints) {
+        for (Phase phase : phases) {
+            for (String operation : phase.operations) {
+                if (!endpoints.contains(operation)) {
+                    throw new IllegalArgumentException("Scenario " + name + " uses unknown operation " + operation);
+                }
+            }
+        }
+    }
+
+    // 以读为主的混合负载，覆盖三个控制器的全部路由
+    private static Scenario mixed() {
+        Map<String, Integer> w = new LinkedHashMap<>();
+        w.put("GET /api/notes", 120);
+        w.put("GET /api/notes?cursor", 60);
+        w.put("GET /api/notes/{id}", 150);
+        w.put("GET /api/notes/search", 80);
+        w.put("GET /api/notes/subject/{subject}", 20);
+        w.put("GET /api/notes/category/{category}", 20);
+        w.put("GET /api/notes/tag/{tag}", 20);
+        w.put("GET /api/notes/favorites", 20);
+        w.put("GET /api/notes/subjects", 15);
+        w.put("GET /api/notes/tags", 15);
+        w.put("GET /api/notes/categories", 15);
+        w.put("GET /api/notes/facets", 20);
+        w.put("GET /api/notes/stats", 15);
+        w.put("GET /api/notes/recent/updated", 15);
+        w.put("GET /api/notes/recent/created", 15);
+        w.put("GET /api/notes/changes", 30);
+        w.put("GET /api/notes/public", 40);
+        w.put("GET /api/notes/public/mine", 10);
+        w.put("GET /api/notes/export", 2);
+        w.put("GET /api/notes/test", 2);
+        w.put("POST /api/notes", 40);
+        w.put("POST /api/notes/bulk", 5);
+        w.put("PUT /api/notes/{id}", 30);
+        w.put("PUT /api/notes/{id}/favorite", 10);
+        w.put("PUT /api/notes/{id}/public", 5);
+        w.put("DELETE /api/notes/{id}", 25);
+        w.put("DELETE /api/notes/batch", 5);
+        w.put("POST /api/auth/login", 10);
+        w.put("POST /api/auth/register", 3);
+        w.put("GET /api/auth/profile", 20);
+        w.put("PUT /api/auth/profile", 5);
+        w.put("PUT /api/auth/password", 1);
+        w.put("POST /api/auth/logout", 2);
+        w.put("GET /api/auth/check-username/{username}", 10);
+        w.put("GET /api/auth/check-email/{email}", 10);
+        w.put("GET /api/auth/test", 2);
+        w.put("POST /api/ai/chat", 10);
+        w.put("POST /api/ai/chat/stream", 5);
+        w.put("GET /api/ai/cache/stats", 2);
+        w.put("GET /api/ai/resilience/stats", 2);
+        w.put("GET /api/ai/test", 2);
+
+        Scenario scenario = new Scenario("mixed");
+        scenario.phases.add(new Phase("mixed", w));
+        return scenario;
+    }
+
+    // 先只有笔记读取（基线），再叠加大量登录（BCrypt），对比两个阶段笔记读取的尾延迟
+    private static Scenario loginStorm() {
+        Map<String, Integer> reads = new LinkedHashMap<>();
+        reads.put("GET /api/notes", 40);
+        reads.put("GET /api/notes/{id}", 40);
+        reads.put("GET /api/notes/search", 20);
+
+        Map<String, Integer> storm = new LinkedHashMap<>(reads);
+        storm.put("POST /api/auth/login", 100);
+
+        Scenario scenario = new Scenario("login-storm");
+        scenario.phases.add(new Phase("baseline", reads));
+        scenario.phases.add(new Phase("storm", storm));
+        return scenario;
+    }
+
+    // 大量用户同时问同一个问题，观察缓存与单飞合并合计节省的上游调用（两者无法在此区分，合并本身由 AIChatServiceTest 验证）；
+    // 配合 --ai-fault-rate 观察熔断
+    private static Scenario aiBurst() {
+        Map<String, Integer> w = new LinkedHashMap<>();
+        w.put("POST /api/ai/chat [hot]", 80);
+        w.put("GET /api/notes/{id}", 20);
+
+        Scenario scenario = new Scenario("ai-burst");
+        scenario.phases.add(new Phase("ai-burst", w));
+        return scenario;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.notes.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+
+// 一个压测用户的状态：登录令牌、预置笔记ID、压测过程中新建的笔记ID（供删除操作使用）和增量同步令牌。
+// 同一个会话会被多个工作线程同时使用
+public class Session {
+
+    private final Long userId;
+    private final String username;
+    private final String email;
+    private final List<Long> seededNotes = new ArrayList<>();
+    private final ConcurrentLinkedDeque<Long> createdNotes = new ConcurrentLinkedDeque<>();
+    private volatile String token;
+    private volatile String syncToken;
+
+    public Session(Long userId, String username, String email) {
+        this.userId = userId;
+        this.username = username;
+        this.email = email;
+    }
+
+    public Long getUserId() { return userId; }
+    public String getUsername() { return username; }
+    public String getEmail() { return email; }
+
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+
+    public String getSyncToken() { return syncToken; }
+    public void setSyncToken(String syncToken) { this.syncToken = syncToken; }
+
+    // 只在生成数据时调用，之后只读
+    void addSeededNote(Long noteId) {
+        seededNotes.add(noteId);
+    }
+
+    public Long randomSeededNote() {
+        return seededNotes.get(ThreadLocalRandom.current().nextInt(seededNotes.size()));
+    }
+
+    public void addCreatedNote(Long noteId) {
+        createdNotes.add(noteId);
+    }
+
+    // 取一条压测中新建的笔记用于删除，没有时返回 null
+    public Long pollCreatedNote() {
+        return createdNotes.pollFirst();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.notes.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// 负载驱动：固定数量的工作线程，每次随机挑一个会话和一个操作同步发送请求并记录延迟。
+// rate 为 0 时闭环运行（收到响应立即发下一个）；否则每个线程按 concurrency / rate 的间隔定速发送
+public class Workload {
+
+    private final HttpClient client;
+    private final Endpoints endpoints;
+    private final List<Session> sessions;
+    private final LatencyRecorder recorder;
+    private final LoadTestOptions options;
+
+    private volatile Scenario.Phase phase;
+    private volatile boolean labelled;
+    private volatile boolean running;
+
+    public Workload(HttpClient client, Endpoints endpoints, List<Session> sessions,
+                    LatencyRecorder recorder, LoadTestOptions options) {
+        this.client = client;
+        this.endpoints = endpoints;
+        this.sessions = sessions;
+        this.recorder = recorder;
+        this.options = options;
+    }
+
+    // 预热（使用第一个阶段的负载，结果丢弃）后依次运行各阶段
+    public void run(Scenario scenario) throws InterruptedException {
+        List<Scenario.Phase> phases = scenario.getPhases();
+        Duration phaseDuration = options.duration().dividedBy(phases.size());
+        labelled = phases.size() > 1;
+        phase = phases.get(0);
+        running = true;
+
+        ExecutorService workers = Executors.newFixedThreadPool(options.concurrency());
+        for (int i = 0; i < options.concurrency(); i++) {
+            long seed = options.seed() + i;
+            workers.execute(() -> work(new Random(seed)));
+        }
+
+        log("warming up for " + options.warmup().toSeconds() + "s");
+        Thread.sleep(options.warmup().toMillis());
+        recorder.reset();
+        for (Scenario.Phase next : phases) {
+            log("phase " + next.getLabel() + " for " + phaseDuration.toSeconds() + "s");
+            phase = next;
+            Thread.sleep(phaseDuration.toMillis());
+        }
+        recorder.stop();
+
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(90, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void work(Random random) {
+        long intervalNanos = options.rate() > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) * options.concurrency() / options.rate())
+                : 0;
+        long next = System.nanoTime();
+        while (running) {
+            if (intervalNanos > 0) {
+                next += intervalNanos;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            Scenario.Phase current = phase;
+            String operation = current.pick(random);
+            Session session = sessions.get(random.nextInt(sessions.size()));
+            String label = labelled ? "[" + current.getLabel() + "] " + operation : operation;
+            execute(operation, label, session, TimeUnit.NANOSECONDS.toMicros(intervalNanos));
+        }
+    }
+
+    // 只统计请求本身；构建请求时的准备工作（例如一次性登录）和响应处理不计入延迟
+    private void execute(String operation, String label, Session session, long expectedIntervalMicros) {
+        HttpResponse<byte[]> response;
+        Endpoints.Call call;
+        try {
+            call = endpoints.prepare(operation, session);
+            if (call == null) {
+                return;
+            }
+            long start = System.nanoTime();
+            response = client.send(call.request, HttpResponse.BodyHandlers.ofByteArray());
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            recorder.record(label, response.statusCode(), micros, expectedIntervalMicros);
+        } catch (IOException | RuntimeException e) {
+            recorder.recordFailure(label);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return;
+        }
+
+        try {
+            call.onResponse.handle(response.statusCode(), response.body());
+        } catch (IOException | RuntimeException e) {
+            // 响应体不是预期的 JSON，会话状态保持不变
+        }
+    }
+
+    static void log(String message) {
+        System.out.println("[loadtest] " + message);
+    }
+}
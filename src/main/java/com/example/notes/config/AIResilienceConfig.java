@@ -0,0 +1,23 @@
+package com.example.notes.config;
+
+import com.example.notes.util.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class AIResilienceConfig {
+
+    // Gemini 调用的熔断器：上游持续出错或变慢时快速失败，不再占用连接和并发名额
+    @Bean
+    public CircuitBreaker geminiCircuitBreaker(
+            @Value("${app.ai.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${app.ai.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${app.ai.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${app.ai.circuit-breaker.slow-call-threshold:20s}") Duration slowCallThreshold,
+            @Value("${app.ai.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        return new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold, slowCallThreshold, openDuration);
+    }
+}
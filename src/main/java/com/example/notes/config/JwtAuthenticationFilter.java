@@ -1,5 +1,6 @@
 package com.example.notes.config;
 
+import com.example.notes.service.TokenRevocationList;
 import com.example.notes.service.UserService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -20,10 +21,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final TokenRevocationList tokenRevocationList;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserService userService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserService userService,
+                                   TokenRevocationList tokenRevocationList) {
         this.jwtUtil = jwtUtil;
         this.userService = userService;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     @Override
@@ -32,9 +36,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         String token = getTokenFromRequest(request);
         
-        if (token != null && jwtUtil.validateToken(token)) {
-            String username = jwtUtil.getUsernameFromToken(token);
-            Long userId = jwtUtil.getUserIdFromToken(token);
+        JwtClaims claims = token != null ? jwtUtil.verify(token).orElse(null) : null;
+        // 已吊销（登出、修改密码）的令牌按未认证处理
+        if (claims != null && tokenRevocationList.isRevoked(claims)) {
+            claims = null;
+        }
+
+        if (claims != null) {
+            String username = claims.getUsername();
+            Long userId = claims.getUserId();
             
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 // 创建认证对象
@@ -45,6 +55,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 // 设置用户ID到请求属性中，供Controller使用
                 request.setAttribute("userId", userId);
                 request.setAttribute("username", username);
+                request.setAttribute("jwtClaims", claims);
                 
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
@@ -0,0 +1,33 @@
+package com.example.notes.config;
+
+import java.time.Instant;
+
+// 已验证签名的 JWT 中本应用用到的声明（不可变，可安全缓存）
+public class JwtClaims {
+
+    // jti：令牌唯一ID，用于服务端吊销（旧版本签发的令牌没有，为 null）
+    private final String tokenId;
+    private final String username;
+    private final Long userId;
+    private final Instant issuedAt;
+    private final Instant expiration;
+
+    public JwtClaims(String tokenId, String username, Long userId, Instant issuedAt, Instant expiration) {
+        this.tokenId = tokenId;
+        this.username = username;
+        this.userId = userId;
+        this.issuedAt = issuedAt;
+        this.expiration = expiration;
+    }
+
+    public boolean isExpired() {
+        return expiration != null && !expiration.isAfter(Instant.now());
+    }
+
+    // Getters
+    public String getTokenId() { return tokenId; }
+    public String getUsername() { return username; }
+    public Long getUserId() { return userId; }
+    public Instant getIssuedAt() { return issuedAt; }
+    public Instant getExpiration() { return expiration; }
+}
@@ -1,86 +1,144 @@
 package com.example.notes.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private final Long jwtExpirationMs;
 
-    @Value("${jwt.expiration}")
-    private Long jwtExpirationMs;
+    // 密钥和解析器只构建一次，线程安全可复用
+    private final SecretKey signingKey;
+    private final JwtParser parser;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // 已验证过的 token -> 声明；条目在 token 过期时同步失效
+    private final Cache<String, JwtClaims> verifiedTokens;
+
+    public JwtUtil(@Value("${jwt.secret}") String jwtSecret,
+                   @Value("${jwt.expiration}") Long jwtExpirationMs,
+                   @Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheSize) {
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, JwtClaims>() {
+                    @Override
+                    public long expireAfterCreate(String token, JwtClaims claims, long currentTime) {
+                        return remainingNanos(claims);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, JwtClaims claims, long currentTime,
+                                                  long currentDuration) {
+                        return remainingNanos(claims);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, JwtClaims claims, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public String generateToken(String username, Long userId) {
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .claim("userId", userId)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    // 验证 token（签名 + 过期）并返回声明；每个 token 只做一次签名校验和解析，之后走缓存
+    public Optional<JwtClaims> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+
+        JwtClaims claims = verifiedTokens.getIfPresent(token);
+        if (claims == null) {
+            try {
+                claims = parse(token);
+            } catch (JwtException | IllegalArgumentException e) {
+                return Optional.empty();
+            }
+            if (claims.getExpiration() != null) {
+                verifiedTokens.put(token, claims);
+            }
+        }
+        return claims.isExpired() ? Optional.empty() : Optional.of(claims);
+    }
+
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        return verifiedClaims(token).getUsername();
     }
 
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return Long.valueOf(claims.get("userId").toString());
+        return verifiedClaims(token).getUserId();
     }
 
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getExpiration();
+        Instant expiration = verifiedClaims(token).getExpiration();
+        return expiration != null ? Date.from(expiration) : null;
     }
 
     public Boolean isTokenExpired(String token) {
-        Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+        return verifiedClaims(token).isExpired();
     }
 
     public Boolean validateToken(String token, String username) {
-        try {
-            String tokenUsername = getUsernameFromToken(token);
-            return tokenUsername.equals(username) && !isTokenExpired(token);
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return verify(token)
+                .map(claims -> Objects.equals(claims.getUsername(), username))
+                .orElse(false);
     }
 
     public Boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return !isTokenExpired(token);
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return verify(token).isPresent();
+    }
+
+    // 取已缓存的声明，没有则完整解析（解析失败时抛出 JwtException，与原先行为一致）
+    private JwtClaims verifiedClaims(String token) {
+        JwtClaims claims = verifiedTokens.getIfPresent(token);
+        return claims != null ? claims : parse(token);
+    }
+
+    // 校验签名并解析声明；过期的 token 会抛出 ExpiredJwtException
+    private JwtClaims parse(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Object userId = claims.get("userId");
+        return new JwtClaims(
+                claims.getId(),
+                claims.getSubject(),
+                userId != null ? Long.valueOf(userId.toString()) : null,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null
+        );
+    }
+
+    private static long remainingNanos(JwtClaims claims) {
+        long remainingMs = Duration.between(Instant.now(), claims.getExpiration()).toMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
     }
-}
\ No newline at end of file
+}
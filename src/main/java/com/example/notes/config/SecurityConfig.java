@@ -1,5 +1,6 @@
 package com.example.notes.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -35,6 +36,8 @@ public class SecurityConfig {
                 .exceptionHandling().authenticationEntryPoint(jwtAuthenticationEntryPoint).and()
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
                 .authorizeHttpRequests(authz -> authz
+                        // 异步分派（流式响应等）沿用原始请求已通过的认证结果
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // 公开端点
                         .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/test").permitAll()
                         .requestMatchers("/api/auth/check-username/**", "/api/auth/check-email/**").permitAll()
@@ -59,6 +62,8 @@ public class SecurityConfig {
         ));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // 让前端脚本能读取 ETag，用于 If-None-Match / If-Match 条件请求
+        configuration.setExposedHeaders(Arrays.asList("ETag"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -1,93 +1,151 @@
 package com.example.notes.controller;
 
 import com.example.notes.dto.AIRequest;
+import com.example.notes.exception.AIServiceException;
+import com.example.notes.service.AIAnswerCache;
+import com.example.notes.service.AIChatService;
+import com.example.notes.service.AIRateLimiter;
+import com.example.notes.service.GeminiClient;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/ai")
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:8080"})
 public class AIController {
 
-    private final RestTemplate restTemplate;
-
-    @Value("${gemini.api.key:your-api-key-here}")
-    private String geminiApiKey;
-
-    public AIController(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    private static final Logger logger = LoggerFactory.getLogger(AIController.class);
+
+    private final AIChatService aiChatService;
+    private final AIAnswerCache aiAnswerCache;
+    private final AIRateLimiter aiRateLimiter;
+    private final GeminiClient geminiClient;
+    private final long streamTimeoutMillis;
+
+    public AIController(AIChatService aiChatService, AIAnswerCache aiAnswerCache,
+                        AIRateLimiter aiRateLimiter, GeminiClient geminiClient,
+                        @Value("${gemini.stream.timeout:5m}") Duration streamTimeout) {
+        this.aiChatService = aiChatService;
+        this.aiAnswerCache = aiAnswerCache;
+        this.aiRateLimiter = aiRateLimiter;
+        this.geminiClient = geminiClient;
+        this.streamTimeoutMillis = streamTimeout.toMillis();
     }
 
+    // 异步返回：等待 Gemini 响应期间不占用 Tomcat 工作线程
     @PostMapping("/chat")
-    public ResponseEntity<Map<String, Object>> chatWithAI(@RequestBody AIRequest request) {
-        try {
-            String prompt = String.format(
-                    "你是一个专业的学习助手。用户正在学习这篇笔记：\n\n【笔记内容】\n%s\n\n【用户问题】\n%s\n\n请基于笔记内容给出详细、有帮助的回答。用中文回答，语气友好专业。",
-                    request.getNoteContent(),
-                    request.getQuestion()
-            );
-
-            // 使用官方指南的正确格式
-            String apiUrl = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash:generateContent";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("X-goog-api-key", geminiApiKey);  // 使用正确的header
-
-            Map<String, Object> requestBody = new HashMap<>();
-            Map<String, Object> content = new HashMap<>();
-            Map<String, String> text = new HashMap<>();
-            text.put("text", prompt);
-            content.put("parts", Arrays.asList(text));
-            requestBody.put("contents", Arrays.asList(content));
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-            ResponseEntity<Map> response = restTemplate.postForEntity(apiUrl, entity, Map.class);
-
-            if (response.getStatusCode() == HttpStatus.OK) {
-                Map<String, Object> responseBody = response.getBody();
-                List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseBody.get("candidates");
-                if (candidates != null && !candidates.isEmpty()) {
-                    Map<String, Object> candidate = candidates.get(0);
-                    Map<String, Object> candidateContent = (Map<String, Object>) candidate.get("content");
-                    List<Map<String, Object>> parts = (List<Map<String, Object>>) candidateContent.get("parts");
-                    if (parts != null && !parts.isEmpty()) {
-                        String aiResponse = (String) parts.get(0).get("text");
-
-                        Map<String, Object> result = new HashMap<>();
-                        result.put("response", aiResponse);
-                        result.put("success", true);
-                        return ResponseEntity.ok(result);
-                    }
-                }
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> chatWithAI(@RequestBody AIRequest request,
+                                                                          HttpServletRequest httpRequest) {
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        aiRateLimiter.acquire(userId);
+        return aiChatService.chat(aiChatService.prepare(userId, request))
+                .thenApply(aiResponse -> {
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("response", aiResponse);
+                    result.put("success", true);
+                    return ResponseEntity.ok(result);
+                })
+                .exceptionally(this::errorResponse);
+    }
+
+    // 流式返回（SSE）：每段文本作为一个 {"text": "..."} 事件发送，结束时发送 done 事件，出错时发送 error 事件。
+    // 浏览器断开或超时时取消上游请求
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChatWithAI(@RequestBody AIRequest request, HttpServletRequest httpRequest) {
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        aiRateLimiter.acquire(userId);
+        AIChatService.PreparedChat chat = aiChatService.prepare(userId, request);
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+
+        // 命中缓存时整段作为一个事件返回
+        Optional<String> cached = aiChatService.cachedAnswer(chat);
+        if (cached.isPresent()) {
+            try {
+                emitter.send(SseEmitter.event().data(Map.of("text", cached.get())));
+                emitter.send(SseEmitter.event().name("done").data(Map.of("success", true)));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
             }
+            return emitter;
+        }
 
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("error", "AI服务响应异常");
-            errorResult.put("success", false);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResult);
+        GeminiClient.TextStream stream = aiChatService.stream(chat,
+                text -> emitter.send(SseEmitter.event().data(Map.of("text", text))));
 
-        } catch (Exception e) {
-            System.err.println("AI API调用异常: " + e.getMessage());
-            e.printStackTrace();
+        emitter.onCompletion(stream::cancel);
+        emitter.onTimeout(stream::cancel);
+        emitter.onError(e -> stream.cancel());
 
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("error", "AI服务暂时不可用：" + e.getMessage());
-            errorResult.put("success", false);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResult);
-        }
+        stream.completion().whenComplete((v, ex) -> {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof CancellationException) {
+                return;
+            }
+            try {
+                if (cause == null) {
+                    emitter.send(SseEmitter.event().name("done").data(Map.of("success", true)));
+                } else {
+                    logger.warn("AI流式调用异常: {}", cause.toString());
+                    emitter.send(SseEmitter.event().name("error")
+                            .data(Map.of("error", "AI服务暂时不可用：" + cause.getMessage(), "success", false)));
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    // AI 回答缓存的命中率、节省的上游耗时等
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(aiAnswerCache.stats());
+    }
+
+    // 限流、并发上限与熔断器状态
+    @GetMapping("/resilience/stats")
+    public ResponseEntity<Map<String, Object>> getResilienceStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rateLimiter", aiRateLimiter.stats());
+        result.put("upstream", geminiClient.stats());
+        return ResponseEntity.ok(result);
     }
 
     @GetMapping("/test")
     public ResponseEntity<String> testAI() {
-        if (geminiApiKey == null || geminiApiKey.equals("your-api-key-here")) {
+        if (!aiChatService.isConfigured()) {
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                     .body("AI服务未配置API密钥");
         }
         return ResponseEntity.ok("AI service is running with Gemini");
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<Map<String, Object>> errorResponse(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        logger.warn("AI API调用异常: {}", cause.toString());
+
+        Map<String, Object> errorResult = new HashMap<>();
+        errorResult.put("error", "AI服务暂时不可用：" + cause.getMessage());
+        errorResult.put("success", false);
+        // 上游超时、并发已满等可重试的情况返回 503，其余为 500
+        HttpStatus status = cause instanceof AIServiceException || cause instanceof HttpTimeoutException
+                ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.INTERNAL_SERVER_ERROR;
+        return ResponseEntity.status(status).body(errorResult);
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.notes.controller;
 
 import com.example.notes.entity.User;
+import com.example.notes.service.ActiveUserCache;
+import com.example.notes.service.TokenRevocationList;
 import com.example.notes.service.UserService;
 import com.example.notes.dto.LoginRequest;
 import com.example.notes.dto.RegisterRequest;
 import com.example.notes.dto.AuthResponse;
 import com.example.notes.dto.UserProfileResponse;
 import com.example.notes.dto.ErrorResponse;
+import com.example.notes.config.JwtClaims;
 import com.example.notes.config.JwtUtil;
 import com.example.notes.exception.AuthenticationException;
 import jakarta.validation.Valid;
@@ -15,7 +18,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -24,44 +29,25 @@ public class AuthController {
 
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final TokenRevocationList tokenRevocationList;
+    private final ActiveUserCache activeUserCache;
 
-    public AuthController(UserService userService, JwtUtil jwtUtil) {
+    public AuthController(UserService userService, JwtUtil jwtUtil, TokenRevocationList tokenRevocationList,
+                          ActiveUserCache activeUserCache) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.tokenRevocationList = tokenRevocationList;
+        this.activeUserCache = activeUserCache;
     }
 
-    // 用户注册
+    // 用户注册（密码哈希在专用线程池中完成，期间不占用 Tomcat 线程）
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
-        User user = userService.registerUser(
+    public CompletableFuture<ResponseEntity<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
+        return userService.registerUser(
                 request.getUsername(),
                 request.getEmail(),
                 request.getPassword()
-        );
-
-        // 生成JWT token
-        String token = jwtUtil.generateToken(user.getUsername(), user.getId());
-        AuthResponse response = new AuthResponse(
-                token,
-                user.getUsername(),
-                user.getEmail(),
-                user.getDisplayName()
-        );
-
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
-    }
-
-    // 用户登录
-    @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
-        Optional<User> userOpt = userService.authenticateUser(
-                request.getUsernameOrEmail(),
-                request.getPassword()
-        );
-
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-
+        ).thenApply(user -> {
             // 生成JWT token
             String token = jwtUtil.generateToken(user.getUsername(), user.getId());
             AuthResponse response = new AuthResponse(
@@ -71,11 +57,35 @@ public class AuthController {
                     user.getDisplayName()
             );
 
-            return ResponseEntity.ok(response);
-        } else {
-            ErrorResponse errorResponse = ErrorResponse.unauthorized("Invalid username/email or password");
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
-        }
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        });
+    }
+
+    // 用户登录（异步校验密码）
+    @PostMapping("/login")
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest request) {
+        return userService.authenticateUser(
+                request.getUsernameOrEmail(),
+                request.getPassword()
+        ).<ResponseEntity<?>>thenApply(userOpt -> {
+            if (userOpt.isPresent()) {
+                User user = userOpt.get();
+
+                // 生成JWT token
+                String token = jwtUtil.generateToken(user.getUsername(), user.getId());
+                AuthResponse response = new AuthResponse(
+                        token,
+                        user.getUsername(),
+                        user.getEmail(),
+                        user.getDisplayName()
+                );
+
+                return ResponseEntity.ok(response);
+            } else {
+                ErrorResponse errorResponse = ErrorResponse.unauthorized("Invalid username/email or password");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
+            }
+        });
     }
 
     // 获取用户资料
@@ -102,7 +112,7 @@ public class AuthController {
                     user.getDisplayName(),
                     user.getAvatarUrl(),
                     user.getCreatedAt(),
-                    user.getLastLoginAt()
+                    userService.getLastLoginAt(user)
             );
             return ResponseEntity.ok(profile);
         } else {
@@ -140,7 +150,7 @@ public class AuthController {
                 updatedUser.getDisplayName(),
                 updatedUser.getAvatarUrl(),
                 updatedUser.getCreatedAt(),
-                updatedUser.getLastLoginAt()
+                userService.getLastLoginAt(updatedUser)
         );
 
         return ResponseEntity.ok(profile);
@@ -148,7 +158,7 @@ public class AuthController {
 
     // 修改密码
     @PutMapping("/password")
-    public ResponseEntity<?> changePassword(
+    public CompletableFuture<ResponseEntity<?>> changePassword(
             HttpServletRequest request,
             @Valid @RequestBody ChangePasswordRequest changePasswordRequest) {
         
@@ -159,12 +169,20 @@ public class AuthController {
             if (userIdHeader != null) {
                 userId = Long.parseLong(userIdHeader);
             } else {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
             }
         }
 
-        userService.changePassword(userId, changePasswordRequest.getOldPassword(), changePasswordRequest.getNewPassword());
-        return ResponseEntity.ok().build();
+        // 修改成功后该用户此前签发的令牌全部失效（UserService 设置失效时间点）；
+        // 当前令牌再按 jti 吊销一次，覆盖与修改同一秒内签发的情况。客户端需要用新密码重新登录
+        JwtClaims claims = (JwtClaims) request.getAttribute("jwtClaims");
+        return userService.changePassword(userId, changePasswordRequest.getOldPassword(), changePasswordRequest.getNewPassword())
+                .thenApply(v -> {
+                    if (claims != null) {
+                        tokenRevocationList.revoke(claims);
+                    }
+                    return ResponseEntity.ok().build();
+                });
     }
 
     // 检查用户名是否可用
@@ -181,14 +199,22 @@ public class AuthController {
         return ResponseEntity.ok(new AvailabilityResponse(available));
     }
 
-    // 登出（暂时只是客户端清除token）
+    // 登出：吊销当前令牌，之后该令牌在过期前也无法再使用
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
-        // JWT模式下，登出主要是客户端删除token
-        // 如果需要服务器端登出，可以维护一个黑名单
+    public ResponseEntity<?> logout(HttpServletRequest request) {
+        JwtClaims claims = (JwtClaims) request.getAttribute("jwtClaims");
+        if (claims != null) {
+            tokenRevocationList.revoke(claims);
+        }
         return ResponseEntity.ok().build();
     }
 
+    // 用户激活状态缓存的命中率等统计
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(activeUserCache.stats());
+    }
+
     @GetMapping("/test")
     public ResponseEntity<String> test() {
         return ResponseEntity.ok("Auth API is working! Current time: " + java.time.LocalDateTime.now());
@@ -1,19 +1,38 @@
 package com.example.notes.controller;
 
+import com.example.notes.dto.BulkImportResponse;
+import com.example.notes.dto.CursorPage;
+import com.example.notes.dto.NoteChanges;
+import com.example.notes.dto.NoteFacets;
+import com.example.notes.dto.NoteSummary;
 import com.example.notes.entity.Note;
+import com.example.notes.service.NoteImportService;
 import com.example.notes.service.NoteService;
+import com.example.notes.service.NoteSyncService;
+import com.example.notes.service.PublicFeedCache;
+import com.example.notes.util.NoteETags;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.security.auth.Subject;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/notes")
@@ -21,28 +40,54 @@ import java.util.List;
 public class NoteController {
 
     private final NoteService noteService;
-
-    public NoteController(NoteService noteService) {
+    private final NoteImportService noteImportService;
+    private final NoteSyncService noteSyncService;
+    private final PublicFeedCache publicFeedCache;
+    private final CacheControl publicFeedCacheControl;
+
+    public NoteController(NoteService noteService, NoteImportService noteImportService,
+                          NoteSyncService noteSyncService, PublicFeedCache publicFeedCache,
+                          @Value("${app.notes.public-feed.max-age:30s}") Duration publicFeedMaxAge) {
         this.noteService = noteService;
+        this.noteImportService = noteImportService;
+        this.noteSyncService = noteSyncService;
+        this.publicFeedCache = publicFeedCache;
+        // 允许浏览器/CDN 在后台重新验证期间继续使用旧内容
+        this.publicFeedCacheControl = CacheControl.maxAge(publicFeedMaxAge)
+                .cachePublic()
+                .staleWhileRevalidate(publicFeedMaxAge.multipliedBy(2));
     }
 
-    // 获取当前用户的所有笔记
+    // 获取当前用户的所有笔记（传 cursor 参数时使用游标分页，第一页传空字符串）
     @GetMapping
-    public ResponseEntity<Page<Note>> getUserNotes(
+    public ResponseEntity<?> getUserNotes(
             HttpServletRequest request,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "updatedAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor) {
             Long userId = (Long) request.getAttribute("userId");
+        String etag = noteService.getUserNotesETag(userId);
+        if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return notModified(etag);
+        }
+
+        if (cursor != null) {
+            if (!sortBy.equals("updatedAt") || !sortDir.equalsIgnoreCase("desc")) {
+                throw new IllegalArgumentException("Cursor pagination only supports sortBy=updatedAt&sortDir=desc");
+            }
+            CursorPage<NoteSummary> notes = noteService.getUserNotesAfter(userId, cursor, Math.min(size, 100));
+            return ResponseEntity.ok().eTag(etag).body(notes);
+        }
 
         Sort sort = sortDir.equalsIgnoreCase("desc")
                 ? Sort.by(sortBy).descending()
                 : Sort.by(sortBy).ascending();
 
         Pageable pageable = PageRequest.of(page, Math.min(size, 100), sort);
-        Page<Note> notes = noteService.getUserNotes(userId, pageable);
-        return ResponseEntity.ok(notes);
+        Page<NoteSummary> notes = noteService.getUserNotes(userId, pageable);
+        return ResponseEntity.ok().eTag(etag).body(notes);
     }
 
     // 根据ID获取用户的笔记
@@ -52,14 +97,23 @@ public class NoteController {
             @PathVariable Long id) {
             Long userId = (Long) request.getAttribute("userId");
 
+        // 先只查更新时间：客户端缓存仍有效时直接返回 304，不加载正文
+        Optional<String> etag = noteService.getNoteETag(userId, id);
+        if (etag.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag.get())) {
+            return notModified(etag.get());
+        }
+
         return noteService.getUserNoteById(userId, id)
-                .map(ResponseEntity::ok)
+                .map(note -> ResponseEntity.ok().eTag(NoteETags.forNote(note)).body(note))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     // 搜索用户笔记
     @GetMapping("/search")
-    public ResponseEntity<Page<Note>> searchNotes(
+    public ResponseEntity<Page<NoteSummary>> searchNotes(
             HttpServletRequest request,
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String subject,
@@ -68,9 +122,13 @@ public class NoteController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
             Long userId = (Long) request.getAttribute("userId");
+        String etag = noteService.getUserNotesETag(userId);
+        if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return notModified(etag);
+        }
         Pageable pageable = PageRequest.of(page, Math.min(size, 100));
-        Page<Note> notes = noteService.searchUserNotes(userId, keyword, subject, category, isFavorite, pageable);
-        return ResponseEntity.ok(notes);
+        Page<NoteSummary> notes = noteService.searchUserNotes(userId, keyword, subject, category, isFavorite, pageable);
+        return ResponseEntity.ok().eTag(etag).body(notes);
     }
 
     // 创建新笔记
@@ -84,8 +142,15 @@ public class NoteController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedNote);
     }
 
+    // 批量导入笔记（请求体为 JSON 数组，流式解析，按批写入），返回每一条的结果
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkImportResponse> importNotes(HttpServletRequest request) throws IOException {
+        Long userId = (Long) request.getAttribute("userId");
+        BulkImportResponse result = noteImportService.importNotes(userId, request.getInputStream());
+        return ResponseEntity.ok(result);
+    }
 
-    // 更新笔记
+    // 更新笔记（带 If-Match 时只在笔记未被他人修改过的情况下更新，否则返回 412）
     @PutMapping("/{id}")
     public ResponseEntity<Note> updateNote(
             HttpServletRequest request,
@@ -93,8 +158,8 @@ public class NoteController {
             @Valid @RequestBody Note noteDetails) {
             Long userId = (Long) request.getAttribute("userId");
 
-        Note updatedNote = noteService.updateNote(userId, id, noteDetails);
-        return ResponseEntity.ok(updatedNote);
+        Note updatedNote = noteService.updateNote(userId, id, noteDetails, request.getHeader(HttpHeaders.IF_MATCH));
+        return ResponseEntity.ok().eTag(NoteETags.forNote(updatedNote)).body(updatedNote);
     }
 
 
@@ -108,14 +173,30 @@ public class NoteController {
         return ResponseEntity.noContent().build();
     }
 
-    // 批量删除笔记
+    // 批量删除笔记，返回实际删除的笔记ID
     @DeleteMapping("/batch")
-    public ResponseEntity<?> deleteNotes(
+    public ResponseEntity<Map<String, Object>> deleteNotes(
             HttpServletRequest request,
             @RequestBody List<Long> noteIds) {
             Long userId = (Long) request.getAttribute("userId");
-        noteService.deleteNotes(userId, noteIds);
-        return ResponseEntity.noContent().build();
+        List<Long> deletedIds = noteService.deleteNotes(userId, noteIds);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("deletedIds", deletedIds);
+        result.put("deletedCount", deletedIds.size());
+        return ResponseEntity.ok(result);
+    }
+
+    // 导出当前用户的全部笔记（NDJSON 流式输出，每行一条笔记）
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportNotes(HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+
+        StreamingResponseBody body = out -> noteService.exportUserNotes(userId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"notes.ndjson\"")
+                .body(body);
     }
 
     // 获取用户的所有科目
@@ -139,43 +220,84 @@ public class NoteController {
         return ResponseEntity.ok(noteService.getUserCategories(userId));
     }
 
+    // 获取用户的科目、分类、标签及各自的笔记数（一次返回）
+    @GetMapping("/facets")
+    public ResponseEntity<NoteFacets> getUserFacets(HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(noteService.getUserFacets(userId));
+    }
+
+    // 增量同步：返回令牌之后新建/修改的笔记和已删除笔记的ID（不传 since 时只返回初始令牌）
+    @GetMapping("/changes")
+    public ResponseEntity<NoteChanges> getChanges(
+            HttpServletRequest request,
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "500") int limit) {
+        Long userId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(noteSyncService.getChanges(userId, since, Math.min(limit, 1000)));
+    }
+
     // 按科目获取笔记
     @GetMapping("/subject/{subject}")
-    public ResponseEntity<Page<Note>> getNotesBySubject(
+    public ResponseEntity<?> getNotesBySubject(
             HttpServletRequest request,
             @PathVariable String subject,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
         Long userId = (Long) request.getAttribute("userId");
+        String etag = noteService.getUserNotesETag(userId);
+        if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return notModified(etag);
+        }
+        if (cursor != null) {
+            return ResponseEntity.ok().eTag(etag).body(noteService.getUserNotesBySubjectAfter(userId, subject, cursor, Math.min(size, 100)));
+        }
         Pageable pageable = PageRequest.of(page, Math.min(size, 100));
-        Page<Note> notes = noteService.getUserNotesBySubject(userId, subject, pageable);
-        return ResponseEntity.ok(notes);
+        Page<NoteSummary> notes = noteService.getUserNotesBySubject(userId, subject, pageable);
+        return ResponseEntity.ok().eTag(etag).body(notes);
     }
 
     // 按分类获取笔记
     @GetMapping("/category/{category}")
-    public ResponseEntity<Page<Note>> getNotesByCategory(
+    public ResponseEntity<?> getNotesByCategory(
             HttpServletRequest request,
             @PathVariable String category,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
         Long userId = (Long) request.getAttribute("userId");
+        String etag = noteService.getUserNotesETag(userId);
+        if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return notModified(etag);
+        }
+        if (cursor != null) {
+            return ResponseEntity.ok().eTag(etag).body(noteService.getUserNotesByCategoryAfter(userId, category, cursor, Math.min(size, 100)));
+        }
         Pageable pageable = PageRequest.of(page, Math.min(size, 100));
-        Page<Note> notes = noteService.getUserNotesByCategory(userId, category, pageable);
-        return ResponseEntity.ok(notes);
+        Page<NoteSummary> notes = noteService.getUserNotesByCategory(userId, category, pageable);
+        return ResponseEntity.ok().eTag(etag).body(notes);
     }
 
     // 按标签获取笔记
     @GetMapping("/tag/{tag}")
-    public ResponseEntity<Page<Note>> getNotesByTag(
+    public ResponseEntity<?> getNotesByTag(
             HttpServletRequest request,
             @PathVariable String tag,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
         Long userId = (Long) request.getAttribute("userId");
+        String etag = noteService.getUserNotesETag(userId);
+        if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return notModified(etag);
+        }
+        if (cursor != null) {
+            return ResponseEntity.ok().eTag(etag).body(noteService.getUserNotesByTagAfter(userId, tag, cursor, Math.min(size, 100)));
+        }
         Pageable pageable = PageRequest.of(page, Math.min(size, 100));
-        Page<Note> notes = noteService.getUserNotesByTag(userId, tag, pageable);
-        return ResponseEntity.ok(notes);
+        Page<NoteSummary> notes = noteService.getUserNotesByTag(userId, tag, pageable);
+        return ResponseEntity.ok().eTag(etag).body(notes);
     }
 
     // 切换收藏状态
@@ -200,14 +322,22 @@ public class NoteController {
 
     // 获取收藏笔记
     @GetMapping("/favorites")
-    public ResponseEntity<Page<Note>> getFavoriteNotes(
+    public ResponseEntity<?> getFavoriteNotes(
             HttpServletRequest request,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
         Long userId = (Long) request.getAttribute("userId");
+        String etag = noteService.getUserNotesETag(userId);
+        if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return notModified(etag);
+        }
+        if (cursor != null) {
+            return ResponseEntity.ok().eTag(etag).body(noteService.getUserFavoriteNotesAfter(userId, cursor, Math.min(size, 100)));
+        }
         Pageable pageable = PageRequest.of(page, Math.min(size, 100));
-        Page<Note> favorites = noteService.getUserFavoriteNotes(userId, pageable);
-        return ResponseEntity.ok(favorites);
+        Page<NoteSummary> favorites = noteService.getUserFavoriteNotes(userId, pageable);
+        return ResponseEntity.ok().eTag(etag).body(favorites);
     }
 
     // 获取笔记统计信息
@@ -220,44 +350,76 @@ public class NoteController {
 
     // 获取最近更新的笔记
     @GetMapping("/recent/updated")
-    public ResponseEntity<List<Note>> getRecentlyUpdatedNotes(
+    public ResponseEntity<List<NoteSummary>> getRecentlyUpdatedNotes(
             HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
-        List<Note> notes = noteService.getRecentlyUpdatedNotes(userId);
-        return ResponseEntity.ok(notes);
+        String etag = noteService.getUserNotesETag(userId);
+        if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return notModified(etag);
+        }
+        List<NoteSummary> notes = noteService.getRecentlyUpdatedNotes(userId);
+        return ResponseEntity.ok().eTag(etag).body(notes);
     }
 
     // 获取最近创建的笔记
     @GetMapping("/recent/created")
-    public ResponseEntity<List<Note>> getRecentlyCreatedNotes(
+    public ResponseEntity<List<NoteSummary>> getRecentlyCreatedNotes(
             HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
-        List<Note> notes = noteService.getRecentlyCreatedNotes(userId);
-        return ResponseEntity.ok(notes);
+        String etag = noteService.getUserNotesETag(userId);
+        if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return notModified(etag);
+        }
+        List<NoteSummary> notes = noteService.getRecentlyCreatedNotes(userId);
+        return ResponseEntity.ok().eTag(etag).body(notes);
     }
 
-    // 获取公开笔记（不需要用户认证）
+    // 获取公开笔记（不需要用户认证）；前几页直接返回共享缓存中序列化好的 JSON
     @GetMapping("/public")
-    public ResponseEntity<Page<Note>> getPublicNotes(
+    public ResponseEntity<?> getPublicNotes(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return ResponseEntity.ok()
+                    .cacheControl(publicFeedCacheControl)
+                    .body(noteService.getPublicNotesAfter(cursor, Math.min(size, 100)));
+        }
+
+        if (publicFeedCache.isCached(page) && size >= 1) {
+            return ResponseEntity.ok()
+                    .cacheControl(publicFeedCacheControl)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(publicFeedCache.getPage(page, Math.min(size, 100)));
+        }
 
         Pageable pageable = PageRequest.of(page, Math.min(size, 100));
-        Page<Note> notes = noteService.getPublicNotes(pageable);
-        return ResponseEntity.ok(notes);
+        Page<NoteSummary> notes = noteService.getPublicNotes(pageable);
+        return ResponseEntity.ok()
+                .cacheControl(publicFeedCacheControl)
+                .body(notes);
     }
 
     // 获取用户的公开笔记
     @GetMapping("/public/mine")
-    public ResponseEntity<Page<Note>> getMyPublicNotes(
+    public ResponseEntity<Page<NoteSummary>> getMyPublicNotes(
             HttpServletRequest request,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
             Long userId = (Long) request.getAttribute("userId");
+        String etag = noteService.getUserNotesETag(userId);
+        if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return notModified(etag);
+        }
 
         Pageable pageable = PageRequest.of(page, Math.min(size, 100));
-        Page<Note> notes = noteService.getUserPublicNotes(userId, pageable);
-        return ResponseEntity.ok(notes);
+        Page<NoteSummary> notes = noteService.getUserPublicNotes(userId, pageable);
+        return ResponseEntity.ok().eTag(etag).body(notes);
+    }
+
+    // 辅助方法：条件请求命中时的 304 响应
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
     }
 
     @GetMapping("/test")
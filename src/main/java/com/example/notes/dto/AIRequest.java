@@ -3,6 +3,8 @@ package com.example.notes.dto;
 public class AIRequest {
     private String question;
     private String noteContent;
+    // 笔记ID：服务端按ID读取当前用户的笔记；此时 noteContent 可不传（仅为兼容旧客户端保留）
+    private Long noteId;
 
     public AIRequest() {}
 
@@ -11,4 +13,7 @@ public class AIRequest {
 
     public String getNoteContent() { return noteContent; }
     public void setNoteContent(String noteContent) { this.noteContent = noteContent; }
+
+    public Long getNoteId() { return noteId; }
+    public void setNoteId(Long noteId) { this.noteId = noteId; }
 }
\ No newline at end of file
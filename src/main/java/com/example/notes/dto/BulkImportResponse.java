@@ -0,0 +1,67 @@
+package com.example.notes.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 批量导入结果：整体统计 + 每一条的处理结果（按请求数组中的下标）
+public class BulkImportResponse {
+
+    private int created;
+    private int failed;
+    private String abortedReason;
+    private List<ItemResult> items = new ArrayList<>();
+
+    public BulkImportResponse() {}
+
+    public void addCreated(int index, Long id) {
+        items.add(new ItemResult(index, "CREATED", id, null));
+        created++;
+    }
+
+    public void addFailed(int index, String error) {
+        items.add(new ItemResult(index, "FAILED", null, error));
+        failed++;
+    }
+
+    // Getters and setters
+    public int getCreated() { return created; }
+    public void setCreated(int created) { this.created = created; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    // 导入中途终止时的原因（例如 JSON 格式错误），正常完成时为 null
+    public String getAbortedReason() { return abortedReason; }
+    public void setAbortedReason(String abortedReason) { this.abortedReason = abortedReason; }
+
+    public List<ItemResult> getItems() { return items; }
+    public void setItems(List<ItemResult> items) { this.items = items; }
+
+    public static class ItemResult {
+        private int index;
+        private String status;
+        private Long id;
+        private String error;
+
+        public ItemResult() {}
+
+        public ItemResult(int index, String status, Long id, String error) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.error = error;
+        }
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.notes.dto;
+
+import com.example.notes.entity.Note;
+
+import java.util.List;
+
+// 增量同步结果：自令牌以来新建或修改过的笔记（完整内容）、已删除笔记的ID，以及下一次请求用的令牌
+public class NoteChanges {
+
+    private List<Note> changed;
+    private List<Long> deleted;
+    private String nextToken;
+    private boolean hasMore;
+
+    public NoteChanges() {}
+
+    public NoteChanges(List<Note> changed, List<Long> deleted, String nextToken, boolean hasMore) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.nextToken = nextToken;
+        this.hasMore = hasMore;
+    }
+
+    public List<Note> getChanged() { return changed; }
+    public void setChanged(List<Note> changed) { this.changed = changed; }
+
+    public List<Long> getDeleted() { return deleted; }
+    public void setDeleted(List<Long> deleted) { this.deleted = deleted; }
+
+    public String getNextToken() { return nextToken; }
+    public void setNextToken(String nextToken) { this.nextToken = nextToken; }
+
+    // 为 true 时说明还有未返回的变更，应立即用 nextToken 继续请求
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
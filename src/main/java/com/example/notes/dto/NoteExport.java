@@ -0,0 +1,67 @@
+package com.example.notes.dto;
+
+import com.example.notes.entity.Note;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+// 导出时的单条笔记（NDJSON 中的一行）
+public class NoteExport {
+
+    private Long id;
+    private String subject;
+    private String title;
+    private String content;
+    private String category;
+    private Set<String> tags;
+    private Boolean isFavorite;
+    private Boolean isPublic;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public NoteExport() {}
+
+    public NoteExport(Note note, Set<String> tags) {
+        this.id = note.getId();
+        this.subject = note.getSubject();
+        this.title = note.getTitle();
+        this.content = note.getContent();
+        this.category = note.getCategory();
+        this.tags = tags;
+        this.isFavorite = note.getIsFavorite();
+        this.isPublic = note.getIsPublic();
+        this.createdAt = note.getCreatedAt();
+        this.updatedAt = note.getUpdatedAt();
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public Set<String> getTags() { return tags; }
+    public void setTags(Set<String> tags) { this.tags = tags; }
+
+    public Boolean getIsFavorite() { return isFavorite; }
+    public void setIsFavorite(Boolean isFavorite) { this.isFavorite = isFavorite; }
+
+    public Boolean getIsPublic() { return isPublic; }
+    public void setIsPublic(Boolean isPublic) { this.isPublic = isPublic; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
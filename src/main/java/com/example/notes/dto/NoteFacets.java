@@ -0,0 +1,46 @@
+package com.example.notes.dto;
+
+import java.util.List;
+
+// 用户笔记的分面统计：每个科目/分类/标签及其笔记数，按值排序
+public class NoteFacets {
+
+    private List<FacetCount> subjects;
+    private List<FacetCount> categories;
+    private List<FacetCount> tags;
+
+    public NoteFacets() {}
+
+    public NoteFacets(List<FacetCount> subjects, List<FacetCount> categories, List<FacetCount> tags) {
+        this.subjects = subjects;
+        this.categories = categories;
+        this.tags = tags;
+    }
+
+    public List<FacetCount> getSubjects() { return subjects; }
+    public void setSubjects(List<FacetCount> subjects) { this.subjects = subjects; }
+
+    public List<FacetCount> getCategories() { return categories; }
+    public void setCategories(List<FacetCount> categories) { this.categories = categories; }
+
+    public List<FacetCount> getTags() { return tags; }
+    public void setTags(List<FacetCount> tags) { this.tags = tags; }
+
+    public static class FacetCount {
+        private String value;
+        private long count;
+
+        public FacetCount() {}
+
+        public FacetCount(String value, long count) {
+            this.value = value;
+            this.count = count;
+        }
+
+        public String getValue() { return value; }
+        public void setValue(String value) { this.value = value; }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+    }
+}
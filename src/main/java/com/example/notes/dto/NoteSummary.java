@@ -0,0 +1,74 @@
+package com.example.notes.dto;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+// 列表接口返回的笔记摘要：不含完整正文，只带前若干字符的预览；完整内容通过 GET /api/notes/{id} 获取
+public class NoteSummary {
+
+    private Long id;
+    private Long userId;
+    private String subject;
+    private String title;
+    private String category;
+    private Set<String> tags = new HashSet<>();
+    private Boolean isFavorite;
+    private Boolean isPublic;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private String contentPreview;
+
+    public NoteSummary() {}
+
+    // 供 NoteRepository 中的 JPQL 构造表达式使用，标签由 NoteService 随后批量填充
+    public NoteSummary(Long id, Long userId, String subject, String title, String category,
+                       Boolean isFavorite, Boolean isPublic, LocalDateTime createdAt,
+                       LocalDateTime updatedAt, String contentPreview) {
+        this.id = id;
+        this.userId = userId;
+        this.subject = subject;
+        this.title = title;
+        this.category = category;
+        this.isFavorite = isFavorite;
+        this.isPublic = isPublic;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.contentPreview = contentPreview == null || contentPreview.isEmpty() ? null : contentPreview;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public Set<String> getTags() { return tags; }
+    public void setTags(Set<String> tags) { this.tags = tags; }
+
+    public Boolean getIsFavorite() { return isFavorite; }
+    public void setIsFavorite(Boolean isFavorite) { this.isFavorite = isFavorite; }
+
+    public Boolean getIsPublic() { return isPublic; }
+    public void setIsPublic(Boolean isPublic) { this.isPublic = isPublic; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    // 正文开头的预览（预览长度配置为 0 时为 null）
+    public String getContentPreview() { return contentPreview; }
+    public void setContentPreview(String contentPreview) { this.contentPreview = contentPreview; }
+}
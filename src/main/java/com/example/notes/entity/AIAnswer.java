@@ -0,0 +1,58 @@
+package com.example.notes.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// 持久化的 AI 回答缓存：主键为 (模型, 笔记内容, 问题) 的哈希，重启后仍可命中
+@Entity
+@Table(name = "ai_answers", indexes = {
+        // 笔记内容变化时按笔记删除
+        @Index(name = "idx_ai_answers_note", columnList = "note_id"),
+        // 按时间清理过期记录
+        @Index(name = "idx_ai_answers_created_at", columnList = "created_at")
+})
+public class AIAnswer {
+
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    @Column(name = "note_id")
+    private Long noteId;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String answer;
+
+    // 生成这条回答时上游的耗时（毫秒），命中时计入节省的时间
+    @Column(name = "upstream_millis", nullable = false)
+    private long upstreamMillis;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public AIAnswer() {}
+
+    public AIAnswer(String cacheKey, Long noteId, String answer, long upstreamMillis) {
+        this.cacheKey = cacheKey;
+        this.noteId = noteId;
+        this.answer = answer;
+        this.upstreamMillis = upstreamMillis;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getCacheKey() { return cacheKey; }
+    public void setCacheKey(String cacheKey) { this.cacheKey = cacheKey; }
+
+    public Long getNoteId() { return noteId; }
+    public void setNoteId(Long noteId) { this.noteId = noteId; }
+
+    public String getAnswer() { return answer; }
+    public void setAnswer(String answer) { this.answer = answer; }
+
+    public long getUpstreamMillis() { return upstreamMillis; }
+    public void setUpstreamMillis(long upstreamMillis) { this.upstreamMillis = upstreamMillis; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
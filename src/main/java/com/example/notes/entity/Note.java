@@ -8,7 +8,11 @@ import java.util.Set;
 import java.util.HashSet;
 
 @Entity
-@Table(name = "notes")
+@Table(name = "notes", indexes = {
+        // 支撑按用户/公开状态的 updatedAt 倒序列表与游标分页
+        @Index(name = "idx_notes_user_updated", columnList = "user_id, updated_at, id"),
+        @Index(name = "idx_notes_public_updated", columnList = "is_public, updated_at, id")
+})
 public class Note {
 
 
@@ -0,0 +1,55 @@
+package com.example.notes.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// 笔记变更日志：每次创建/修改/删除笔记写一行，自增ID即单调递增的变更序号，供增量同步使用。
+// 删除的笔记在这里留下墓碑（DELETE 记录），超过保留期后由定时任务清理
+@Entity
+@Table(name = "note_changes", indexes = {
+        // 支撑按用户从某个序号之后读取变更
+        @Index(name = "idx_note_changes_user_seq", columnList = "user_id, id"),
+        // 支撑按时间清理过期记录
+        @Index(name = "idx_note_changes_changed_at", columnList = "changed_at"),
+        // 支撑压缩时查找同一笔记更新的记录
+        @Index(name = "idx_note_changes_note_seq", columnList = "note_id, id")
+})
+public class NoteChange {
+
+    public enum Type { UPSERT, DELETE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Type type;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    public NoteChange() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getNoteId() { return noteId; }
+    public void setNoteId(Long noteId) { this.noteId = noteId; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public LocalDateTime getChangedAt() { return changedAt; }
+    public void setChangedAt(LocalDateTime changedAt) { this.changedAt = changedAt; }
+}
@@ -0,0 +1,43 @@
+package com.example.notes.event;
+
+// 笔记变更事件：由 NoteService 在写操作中发布，监听器在事务提交后维护各自的派生数据
+public class NoteChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+    private final Long userId;
+    private final Long noteId;
+    private final NoteSnapshot before;
+    private final NoteSnapshot after;
+
+    private NoteChangedEvent(Type type, Long userId, Long noteId, NoteSnapshot before, NoteSnapshot after) {
+        this.type = type;
+        this.userId = userId;
+        this.noteId = noteId;
+        this.before = before;
+        this.after = after;
+    }
+
+    public static NoteChangedEvent created(NoteSnapshot after) {
+        return new NoteChangedEvent(Type.CREATED, after.getUserId(), after.getId(), null, after);
+    }
+
+    public static NoteChangedEvent updated(NoteSnapshot before, NoteSnapshot after) {
+        return new NoteChangedEvent(Type.UPDATED, after.getUserId(), after.getId(), before, after);
+    }
+
+    public static NoteChangedEvent deleted(NoteSnapshot before) {
+        return new NoteChangedEvent(Type.DELETED, before.getUserId(), before.getId(), before, null);
+    }
+
+    public Type getType() { return type; }
+    public Long getUserId() { return userId; }
+    public Long getNoteId() { return noteId; }
+
+    // 变更前的快照（创建时为 null）
+    public NoteSnapshot getBefore() { return before; }
+
+    // 变更后的快照（删除时为 null）
+    public NoteSnapshot getAfter() { return after; }
+}
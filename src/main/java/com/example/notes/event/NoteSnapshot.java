@@ -0,0 +1,65 @@
+package com.example.notes.event;
+
+import com.example.notes.entity.Note;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+// 笔记在某一时刻的不可变快照，供事务提交后的监听器使用（避免持有托管实体）
+public class NoteSnapshot {
+
+    private final Long id;
+    private final Long userId;
+    private final String subject;
+    private final String title;
+    private final String content;
+    private final String category;
+    private final Set<String> tags;
+    private final boolean favorite;
+    private final boolean isPublic;
+    private final LocalDateTime updatedAt;
+
+    public NoteSnapshot(Long id, Long userId, String subject, String title, String content,
+                        String category, Set<String> tags, boolean favorite, boolean isPublic,
+                        LocalDateTime updatedAt) {
+        this.id = id;
+        this.userId = userId;
+        this.subject = subject;
+        this.title = title;
+        this.content = content;
+        this.category = category;
+        this.tags = tags != null ? Collections.unmodifiableSet(new HashSet<>(tags)) : Collections.emptySet();
+        this.favorite = favorite;
+        this.isPublic = isPublic;
+        this.updatedAt = updatedAt;
+    }
+
+    public static NoteSnapshot of(Note note) {
+        return new NoteSnapshot(
+                note.getId(),
+                note.getUserId(),
+                note.getSubject(),
+                note.getTitle(),
+                note.getContent(),
+                note.getCategory(),
+                note.getTags(),
+                Boolean.TRUE.equals(note.getIsFavorite()),
+                Boolean.TRUE.equals(note.getIsPublic()),
+                note.getUpdatedAt()
+        );
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public Long getUserId() { return userId; }
+    public String getSubject() { return subject; }
+    public String getTitle() { return title; }
+    public String getContent() { return content; }
+    public String getCategory() { return category; }
+    public Set<String> getTags() { return tags; }
+    public boolean isFavorite() { return favorite; }
+    public boolean isPublic() { return isPublic; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
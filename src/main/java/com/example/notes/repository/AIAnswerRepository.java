@@ -0,0 +1,32 @@
+package com.example.notes.repository;
+
+import com.example.notes.entity.AIAnswer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface AIAnswerRepository extends JpaRepository<AIAnswer, String> {
+
+    // 读取未过期的缓存回答
+    @Query("SELECT a FROM AIAnswer a WHERE a.cacheKey = :cacheKey AND a.createdAt >= :notBefore")
+    Optional<AIAnswer> findFresh(@Param("cacheKey") String cacheKey, @Param("notBefore") LocalDateTime notBefore);
+
+    // 笔记内容变化或笔记被删除时，删除基于旧内容的回答
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AIAnswer a WHERE a.noteId = :noteId")
+    int deleteByNoteId(@Param("noteId") Long noteId);
+
+    // 清理过期回答
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AIAnswer a WHERE a.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,81 @@
+package com.example.notes.repository;
+
+import com.example.notes.entity.Note;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+
+// 基于 JDBC 批处理的笔记写入。notes.id 是自增列（IDENTITY），Hibernate 在这种情况下无法批量插入，
+// 这里直接用 addBatch/executeBatch 一次提交整批，并通过 getGeneratedKeys 回填ID
+@Repository
+public class NoteBatchRepository {
+
+    private static final String INSERT_NOTE =
+            "INSERT INTO notes (subject, title, content, category, is_favorite, is_public, created_at, updated_at, user_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_TAG = "INSERT INTO note_tags (note_id, tag) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NoteBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // 批量插入笔记及其标签（需在事务内调用），插入后把生成的ID写回每个 Note 对象
+    public void insertAll(Long userId, List<Note> notes) {
+        if (notes.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_NOTE, Statement.RETURN_GENERATED_KEYS)) {
+                for (Note note : notes) {
+                    ps.setString(1, note.getSubject());
+                    ps.setString(2, note.getTitle());
+                    ps.setString(3, note.getContent());
+                    ps.setString(4, note.getCategory());
+                    ps.setBoolean(5, note.getIsFavorite());
+                    ps.setBoolean(6, note.getIsPublic());
+                    ps.setTimestamp(7, Timestamp.valueOf(note.getCreatedAt()));
+                    ps.setTimestamp(8, Timestamp.valueOf(note.getUpdatedAt()));
+                    ps.setLong(9, userId);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < notes.size()) {
+                        notes.get(i++).setId(keys.getLong(1));
+                    }
+                    if (i != notes.size()) {
+                        throw new IllegalStateException("Expected " + notes.size() + " generated keys but got " + i);
+                    }
+                }
+            }
+
+            try (PreparedStatement ps = con.prepareStatement(INSERT_TAG)) {
+                boolean hasTags = false;
+                for (Note note : notes) {
+                    for (String tag : note.getTags()) {
+                        ps.setLong(1, note.getId());
+                        ps.setString(2, tag);
+                        ps.addBatch();
+                        hasTags = true;
+                    }
+                }
+                if (hasTags) {
+                    ps.executeBatch();
+                }
+            }
+            return null;
+        });
+    }
+}
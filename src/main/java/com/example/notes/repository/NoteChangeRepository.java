@@ -0,0 +1,48 @@
+package com.example.notes.repository;
+
+import com.example.notes.entity.NoteChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NoteChangeRepository extends JpaRepository<NoteChange, Long> {
+
+    // 读取用户在某个序号之后、且已可见（changedAt 不晚于 visibleBefore）的变更，按序号升序，Pageable 只用于限制条数
+    @Query("SELECT c FROM NoteChange c WHERE c.userId = :userId AND c.id > :since " +
+            "AND c.changedAt <= :visibleBefore ORDER BY c.id")
+    List<NoteChange> findChangesAfter(@Param("userId") Long userId,
+                                      @Param("since") Long since,
+                                      @Param("visibleBefore") LocalDateTime visibleBefore,
+                                      Pageable pageable);
+
+    // 当前已可见的最大序号（新客户端获取初始同步令牌用）
+    @Query("SELECT MAX(c.id) FROM NoteChange c WHERE c.changedAt <= :visibleBefore")
+    Long findLatestId(@Param("visibleBefore") LocalDateTime visibleBefore);
+
+    // 最小序号（压缩时确定分段范围用）
+    @Query("SELECT MIN(c.id) FROM NoteChange c")
+    Long findEarliestId();
+
+    // 清理超过保留期的变更记录（包括墓碑），每次最多删除 limit 行
+    @Modifying
+    @Query(value = "DELETE FROM note_changes WHERE changed_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    // 压缩：同一篇笔记只保留最新的一条变更（更早的记录对任何客户端都已没有意义）。
+    // 只处理序号在 [fromId, toId) 内的旧记录，由调用方分段执行；按 (note_id, id) 索引查找更新的记录
+    @Modifying
+    @Query(value = "DELETE c1 FROM note_changes c1 JOIN note_changes c2 " +
+            "ON c1.note_id = c2.note_id AND c1.id < c2.id " +
+            "WHERE c1.id >= :fromId AND c1.id < :toId AND c2.changed_at <= :visibleBefore",
+            nativeQuery = true)
+    int deleteSuperseded(@Param("fromId") Long fromId,
+                         @Param("toId") Long toId,
+                         @Param("visibleBefore") LocalDateTime visibleBefore);
+}
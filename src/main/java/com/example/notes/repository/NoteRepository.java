@@ -1,34 +1,97 @@
 package com.example.notes.repository;
 
+import com.example.notes.dto.NoteSummary;
 import com.example.notes.entity.Note;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface NoteRepository extends JpaRepository<Note, Long> {
 
-    // 用户相关的基础查询
-    Page<Note> findByUser_IdOrderByUpdatedAtDesc(Long userId, Pageable pageable);
+    // 列表查询的摘要投影：只取正文前 :previewLength 个字符，不加载标签（由调用方批量查询）
+    String SUMMARY_SELECT = "SELECT new com.example.notes.dto.NoteSummary(n.id, n.user.id, n.subject, n.title, " +
+            "n.category, n.isFavorite, n.isPublic, n.createdAt, n.updatedAt, " +
+            "SUBSTRING(n.content, 1, :previewLength)) ";
+
+    // 用户相关的基础查询（排序由 Pageable 指定）
+    @Query(value = SUMMARY_SELECT + "FROM Note n WHERE n.user.id = :userId",
+            countQuery = "SELECT COUNT(n) FROM Note n WHERE n.user.id = :userId")
+    Page<NoteSummary> findSummariesByUserId(@Param("userId") Long userId,
+                                            @Param("previewLength") int previewLength,
+                                            Pageable pageable);
 
     List<Note> findByUser_IdOrderByUpdatedAtDesc(Long userId);
 
     Optional<Note> findByIdAndUser_Id(Long id, Long userId);
 
+    // 加行锁读取笔记（带 If-Match 的更新用，保证比较版本和写入之间不被其他请求修改）
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n FROM Note n WHERE n.id = :id AND n.user.id = :userId")
+    Optional<Note> findForUpdateByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // 只取笔记的更新时间（计算 ETag 用，不加载正文）
+    @Query("SELECT n.updatedAt FROM Note n WHERE n.id = :id AND n.user.id = :userId")
+    Optional<LocalDateTime> findUpdatedAtByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // 用户笔记集合的版本，返回 [笔记数, 最大 updatedAt]（计算列表 ETag 用）
+    @Query("SELECT COUNT(n), MAX(n.updatedAt) FROM Note n WHERE n.user.id = :userId")
+    List<Object[]> findListVersionByUserId(@Param("userId") Long userId);
+
     // 按科目查询用户的笔记
-    Page<Note> findByUser_IdAndSubjectOrderByUpdatedAtDesc(Long userId, String subject, Pageable pageable);
+    @Query(value = SUMMARY_SELECT + "FROM Note n WHERE n.user.id = :userId AND n.subject = :subject " +
+            "ORDER BY n.updatedAt DESC",
+            countQuery = "SELECT COUNT(n) FROM Note n WHERE n.user.id = :userId AND n.subject = :subject")
+    Page<NoteSummary> findSummariesByUserIdAndSubject(@Param("userId") Long userId,
+                                                      @Param("subject") String subject,
+                                                      @Param("previewLength") int previewLength,
+                                                      Pageable pageable);
 
     // 查询用户的收藏笔记
-    Page<Note> findByUser_IdAndIsFavoriteTrueOrderByUpdatedAtDesc(Long userId, Pageable pageable);
+    @Query(value = SUMMARY_SELECT + "FROM Note n WHERE n.user.id = :userId AND n.isFavorite = true " +
+            "ORDER BY n.updatedAt DESC",
+            countQuery = "SELECT COUNT(n) FROM Note n WHERE n.user.id = :userId AND n.isFavorite = true")
+    Page<NoteSummary> findFavoriteSummariesByUserId(@Param("userId") Long userId,
+                                                    @Param("previewLength") int previewLength,
+                                                    Pageable pageable);
 
     // 按分类查询用户的笔记
-    Page<Note> findByUser_IdAndCategoryOrderByUpdatedAtDesc(Long userId, String category, Pageable pageable);
+    @Query(value = SUMMARY_SELECT + "FROM Note n WHERE n.user.id = :userId AND n.category = :category " +
+            "ORDER BY n.updatedAt DESC",
+            countQuery = "SELECT COUNT(n) FROM Note n WHERE n.user.id = :userId AND n.category = :category")
+    Page<NoteSummary> findSummariesByUserIdAndCategory(@Param("userId") Long userId,
+                                                       @Param("category") String category,
+                                                       @Param("previewLength") int previewLength,
+                                                       Pageable pageable);
+
+    // 在给定ID中筛选出属于该用户的笔记，返回 [id, subject, category, isFavorite, isPublic, updatedAt]
+    @Query("SELECT n.id, n.subject, n.category, n.isFavorite, n.isPublic, n.updatedAt FROM Note n " +
+            "WHERE n.user.id = :userId AND n.id IN :ids")
+    List<Object[]> findDeletionInfoByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    // 批量删除笔记的标签
+    @Modifying
+    @Query(value = "DELETE FROM note_tags WHERE note_id IN (:ids)", nativeQuery = true)
+    int deleteTagsByNoteIds(@Param("ids") Collection<Long> ids);
+
+    // 批量删除用户的笔记
+    @Modifying
+    @Query("DELETE FROM Note n WHERE n.user.id = :userId AND n.id IN :ids")
+    int deleteByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
 
     // 获取用户的所有标签
     @Query("SELECT DISTINCT t FROM Note n JOIN n.tags t WHERE n.user.id = :userId ORDER BY t")
@@ -42,29 +105,76 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
     @Query("SELECT DISTINCT n.category FROM Note n WHERE n.user.id = :userId AND n.category IS NOT NULL ORDER BY n.category")
     List<String> findAllCategoriesByUserId(@Param("userId") Long userId);
 
-    // 用户笔记的高级搜索
-    @Query("SELECT n FROM Note n WHERE n.user.id = :userId AND " +
-            "(:keyword IS NULL OR LOWER(n.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(n.content) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND " +
+    // 获取用户每篇笔记的分面字段（用于构建分面计数），返回 [id, subject, category, isFavorite]
+    @Query("SELECT n.id, n.subject, n.category, n.isFavorite FROM Note n WHERE n.user.id = :userId")
+    List<Object[]> findFacetFieldsByUserId(@Param("userId") Long userId);
+
+    // 获取用户每篇笔记的标签，返回 [noteId, tag]
+    @Query("SELECT n.id, t FROM Note n JOIN n.tags t WHERE n.user.id = :userId")
+    List<Object[]> findTagsByUserId(@Param("userId") Long userId);
+
+    // 用户笔记的条件过滤（关键词搜索走内存倒排索引，见 NoteSearchIndex）
+    @Query(value = SUMMARY_SELECT + "FROM Note n WHERE n.user.id = :userId AND " +
             "(:subject IS NULL OR n.subject = :subject) AND " +
             "(:category IS NULL OR n.category = :category) AND " +
             "(:isFavorite IS NULL OR n.isFavorite = :isFavorite) " +
-            "ORDER BY n.updatedAt DESC")
-    Page<Note> searchUserNotes(@Param("userId") Long userId,
-                               @Param("keyword") String keyword,
-                               @Param("subject") String subject,
-                               @Param("category") String category,
-                               @Param("isFavorite") Boolean isFavorite,
-                               Pageable pageable);
+            "ORDER BY n.updatedAt DESC",
+            countQuery = "SELECT COUNT(n) FROM Note n WHERE n.user.id = :userId AND " +
+                    "(:subject IS NULL OR n.subject = :subject) AND " +
+                    "(:category IS NULL OR n.category = :category) AND " +
+                    "(:isFavorite IS NULL OR n.isFavorite = :isFavorite)")
+    Page<NoteSummary> filterUserNotes(@Param("userId") Long userId,
+                                      @Param("subject") String subject,
+                                      @Param("category") String category,
+                                      @Param("isFavorite") Boolean isFavorite,
+                                      @Param("previewLength") int previewLength,
+                                      Pageable pageable);
+
+    // 按ID批量获取用户笔记摘要（搜索结果分页后回表）
+    @Query(SUMMARY_SELECT + "FROM Note n WHERE n.user.id = :userId AND n.id IN :ids")
+    List<NoteSummary> findSummariesByUserIdAndIdIn(@Param("userId") Long userId,
+                                                   @Param("ids") Collection<Long> ids,
+                                                   @Param("previewLength") int previewLength);
+
+    // 流式读取用户全部笔记（导出用）：只读、按批从数据库取，需在事务内消费并关闭
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT n FROM Note n WHERE n.user.id = :userId ORDER BY n.id")
+    Stream<Note> streamByUserId(@Param("userId") Long userId);
+
+    // 批量获取多篇笔记的标签，返回 [noteId, tag]
+    @Query("SELECT n.id, t FROM Note n JOIN n.tags t WHERE n.id IN :ids")
+    List<Object[]> findTagsByNoteIds(@Param("ids") Collection<Long> ids);
+
+    // 获取用户全部笔记及标签（用于构建搜索索引）
+    @Query("SELECT DISTINCT n FROM Note n LEFT JOIN FETCH n.tags WHERE n.user.id = :userId")
+    List<Note> findAllWithTagsByUserId(@Param("userId") Long userId);
+
+    // 按ID批量获取用户笔记及标签（增量同步用）
+    @Query("SELECT DISTINCT n FROM Note n LEFT JOIN FETCH n.tags WHERE n.user.id = :userId AND n.id IN :ids")
+    List<Note> findAllWithTagsByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
 
     // 按标签搜索用户笔记
-    @Query("SELECT n FROM Note n JOIN n.tags t WHERE n.user.id = :userId AND t = :tag ORDER BY n.updatedAt DESC")
-    Page<Note> findByUser_IdAndTag(@Param("userId") Long userId, @Param("tag") String tag, Pageable pageable);
+    @Query(value = SUMMARY_SELECT + "FROM Note n JOIN n.tags t WHERE n.user.id = :userId AND t = :tag " +
+            "ORDER BY n.updatedAt DESC",
+            countQuery = "SELECT COUNT(n) FROM Note n JOIN n.tags t WHERE n.user.id = :userId AND t = :tag")
+    Page<NoteSummary> findSummariesByUserIdAndTag(@Param("userId") Long userId,
+                                                  @Param("tag") String tag,
+                                                  @Param("previewLength") int previewLength,
+                                                  Pageable pageable);
 
     // 查询用户笔记统计信息
     @Query("SELECT COUNT(n) FROM Note n WHERE n.user.id = :userId")
     Long countByUserId(@Param("userId") Long userId);
 
+    // 一次聚合出用户笔记统计，返回 [笔记数, 收藏数, 科目数, 分类数]
+    @Query("SELECT COUNT(n), COALESCE(SUM(CASE WHEN n.isFavorite = true THEN 1 ELSE 0 END), 0), " +
+            "COUNT(DISTINCT n.subject), COUNT(DISTINCT n.category) FROM Note n WHERE n.user.id = :userId")
+    List<Object[]> aggregateStatsByUserId(@Param("userId") Long userId);
+
     @Query("SELECT COUNT(n) FROM Note n WHERE n.user.id = :userId AND n.isFavorite = true")
     Long countFavoritesByUserId(@Param("userId") Long userId);
 
@@ -76,16 +186,84 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
     @Query("DELETE FROM Note n WHERE n.user.id = :userId")
     void deleteByUserId(@Param("userId") Long userId);
 
-    // 查询用户最近更新的笔记
-    List<Note> findTop10ByUser_IdOrderByUpdatedAtDesc(Long userId);
+    // 查询用户最近更新的笔记（条数由 Pageable 限制）
+    @Query(SUMMARY_SELECT + "FROM Note n WHERE n.user.id = :userId ORDER BY n.updatedAt DESC")
+    List<NoteSummary> findRecentlyUpdatedSummaries(@Param("userId") Long userId,
+                                                   @Param("previewLength") int previewLength,
+                                                   Pageable pageable);
 
-    // 查询用户最近创建的笔记
-    List<Note> findTop10ByUser_IdOrderByCreatedAtDesc(Long userId);
+    // 查询用户最近创建的笔记（条数由 Pageable 限制）
+    @Query(SUMMARY_SELECT + "FROM Note n WHERE n.user.id = :userId ORDER BY n.createdAt DESC")
+    List<NoteSummary> findRecentlyCreatedSummaries(@Param("userId") Long userId,
+                                                   @Param("previewLength") int previewLength,
+                                                   Pageable pageable);
 
     // 公开笔记相关（如果后续需要分享功能）
-    @Query("SELECT n FROM Note n WHERE n.isPublic = true ORDER BY n.updatedAt DESC")
-    Page<Note> findPublicNotes(Pageable pageable);
+    @Query(value = SUMMARY_SELECT + "FROM Note n WHERE n.isPublic = true ORDER BY n.updatedAt DESC",
+            countQuery = "SELECT COUNT(n) FROM Note n WHERE n.isPublic = true")
+    Page<NoteSummary> findPublicNotes(@Param("previewLength") int previewLength, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "FROM Note n WHERE n.user.id = :userId AND n.isPublic = true " +
+            "ORDER BY n.updatedAt DESC",
+            countQuery = "SELECT COUNT(n) FROM Note n WHERE n.user.id = :userId AND n.isPublic = true")
+    Page<NoteSummary> findPublicNotesByUser_Id(@Param("userId") Long userId,
+                                               @Param("previewLength") int previewLength,
+                                               Pageable pageable);
+
+    // 游标（keyset）分页：按 (updatedAt, id) 降序从游标位置之后继续取，Pageable 只用于限制条数
+    @Query(SUMMARY_SELECT + "FROM Note n WHERE n.user.id = :userId AND " +
+            "(n.updatedAt < :updatedAt OR (n.updatedAt = :updatedAt AND n.id < :id)) " +
+            "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteSummary> findUserNotesAfter(@Param("userId") Long userId,
+                                         @Param("updatedAt") LocalDateTime updatedAt,
+                                         @Param("id") Long id,
+                                         @Param("previewLength") int previewLength,
+                                         Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "FROM Note n WHERE n.user.id = :userId AND n.subject = :subject AND " +
+            "(n.updatedAt < :updatedAt OR (n.updatedAt = :updatedAt AND n.id < :id)) " +
+            "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteSummary> findUserNotesBySubjectAfter(@Param("userId") Long userId,
+                                                  @Param("subject") String subject,
+                                                  @Param("updatedAt") LocalDateTime updatedAt,
+                                                  @Param("id") Long id,
+                                                  @Param("previewLength") int previewLength,
+                                                  Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "FROM Note n WHERE n.user.id = :userId AND n.category = :category AND " +
+            "(n.updatedAt < :updatedAt OR (n.updatedAt = :updatedAt AND n.id < :id)) " +
+            "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteSummary> findUserNotesByCategoryAfter(@Param("userId") Long userId,
+                                                   @Param("category") String category,
+                                                   @Param("updatedAt") LocalDateTime updatedAt,
+                                                   @Param("id") Long id,
+                                                   @Param("previewLength") int previewLength,
+                                                   Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "FROM Note n JOIN n.tags t WHERE n.user.id = :userId AND t = :tag AND " +
+            "(n.updatedAt < :updatedAt OR (n.updatedAt = :updatedAt AND n.id < :id)) " +
+            "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteSummary> findUserNotesByTagAfter(@Param("userId") Long userId,
+                                              @Param("tag") String tag,
+                                              @Param("updatedAt") LocalDateTime updatedAt,
+                                              @Param("id") Long id,
+                                              @Param("previewLength") int previewLength,
+                                              Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "FROM Note n WHERE n.user.id = :userId AND n.isFavorite = true AND " +
+            "(n.updatedAt < :updatedAt OR (n.updatedAt = :updatedAt AND n.id < :id)) " +
+            "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteSummary> findUserFavoriteNotesAfter(@Param("userId") Long userId,
+                                                 @Param("updatedAt") LocalDateTime updatedAt,
+                                                 @Param("id") Long id,
+                                                 @Param("previewLength") int previewLength,
+                                                 Pageable pageable);
 
-    @Query("SELECT n FROM Note n WHERE n.user.id = :userId AND n.isPublic = true ORDER BY n.updatedAt DESC")
-    Page<Note> findPublicNotesByUser_Id(@Param("userId") Long userId, Pageable pageable);
+    @Query(SUMMARY_SELECT + "FROM Note n WHERE n.isPublic = true AND " +
+            "(n.updatedAt < :updatedAt OR (n.updatedAt = :updatedAt AND n.id < :id)) " +
+            "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteSummary> findPublicNotesAfter(@Param("updatedAt") LocalDateTime updatedAt,
+                                           @Param("id") Long id,
+                                           @Param("previewLength") int previewLength,
+                                           Pageable pageable);
 }
\ No newline at end of file
@@ -1,14 +1,18 @@
 package com.example.notes.repository;
 
 import com.example.notes.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -34,6 +38,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByIdAndIsActiveTrue(Long id);
 
+    boolean existsByIdAndIsActiveTrue(Long id);
+
+    // 流式读取全部用户名和邮箱 [username, email]（构建可用性过滤器用），需在事务内消费并关闭
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.username, u.email FROM User u")
+    Stream<Object[]> streamUsernamesAndEmails();
+
     Optional<User> findByUsernameAndIsActiveTrue(String username);
 
     Optional<User> findByEmailAndIsActiveTrue(String email);
@@ -43,6 +57,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("UPDATE User u SET u.lastLoginAt = :loginTime WHERE u.id = :userId")
     void updateLastLoginTime(@Param("userId") Long userId, @Param("loginTime") LocalDateTime loginTime);
 
+    // 更新密码哈希（仅当哈希仍是 expectedPassword 时，避免覆盖期间被修改的密码）
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :userId AND u.password = :expectedPassword")
+    int updatePassword(@Param("userId") Long userId,
+                       @Param("expectedPassword") String expectedPassword,
+                       @Param("password") String password);
+
+    // 使该用户在 validAfter 之前签发的令牌全部失效
+    @Modifying
+    @Query("UPDATE User u SET u.tokensValidAfter = :validAfter WHERE u.id = :userId")
+    void updateTokensValidAfter(@Param("userId") Long userId, @Param("validAfter") LocalDateTime validAfter);
+
+    // 晚于 since 的令牌失效时间点 [userId, tokensValidAfter]（重建内存吊销集用）
+    @Query("SELECT u.id, u.tokensValidAfter FROM User u WHERE u.tokensValidAfter > :since")
+    List<Object[]> findTokenWatermarks(@Param("since") LocalDateTime since);
+
     // 更新用户状态
     @Modifying
     @Query("UPDATE User u SET u.isActive = :isActive WHERE u.id = :userId")
@@ -0,0 +1,31 @@
+package com.example.notes.search;
+
+// BM25 打分公式（Okapi BM25，k1/b 取常用默认值）
+public final class Bm25 {
+
+    public static final double DEFAULT_K1 = 1.2;
+    public static final double DEFAULT_B = 0.75;
+
+    private final double k1;
+    private final double b;
+
+    public Bm25() {
+        this(DEFAULT_K1, DEFAULT_B);
+    }
+
+    public Bm25(double k1, double b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    // 逆文档频率：docCount 为文档总数，docFreq 为包含该词的文档数
+    public double idf(int docCount, int docFreq) {
+        return Math.log(1.0 + (docCount - docFreq + 0.5) / (docFreq + 0.5));
+    }
+
+    // 单个词在单篇文档中的得分
+    public double score(double idf, double termFreq, double docLength, double avgDocLength) {
+        double norm = avgDocLength > 0 ? docLength / avgDocLength : 1.0;
+        return idf * (termFreq * (k1 + 1)) / (termFreq + k1 * (1 - b + b * norm));
+    }
+}
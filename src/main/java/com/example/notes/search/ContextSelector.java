@@ -0,0 +1,149 @@
+package com.example.notes.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// AI 问答的上下文选择：笔记超过 token 预算时，按段落切成若干块，用 BM25 对问题打分，
+// 在预算内挑选最相关的块，按原文顺序拼接后放入提示词
+@Component
+public class ContextSelector {
+
+    private static final String OMISSION = "\n……\n";
+
+    private final Bm25 bm25 = new Bm25();
+    private final int tokenBudget;
+    private final int chunkChars;
+
+    public ContextSelector(@Value("${app.ai.context.token-budget:1500}") int tokenBudget,
+                           @Value("${app.ai.context.chunk-chars:400}") int chunkChars) {
+        this.tokenBudget = tokenBudget;
+        this.chunkChars = chunkChars;
+    }
+
+    // 返回放入提示词的笔记内容（未超预算时原样返回）
+    public String select(String content, String question) {
+        if (content == null || content.isEmpty() || estimateTokens(content) <= tokenBudget) {
+            return content;
+        }
+
+        List<String> chunks = chunk(content);
+        if (chunks.isEmpty()) {
+            return content.trim();
+        }
+        List<List<String>> chunkTokens = new ArrayList<>(chunks.size());
+        Map<String, Integer> docFreq = new HashMap<>();
+        double totalLength = 0;
+        for (String chunk : chunks) {
+            List<String> tokens = TextAnalyzer.tokenize(chunk);
+            chunkTokens.add(tokens);
+            totalLength += tokens.size();
+            for (String term : new HashSet<>(tokens)) {
+                docFreq.merge(term, 1, Integer::sum);
+            }
+        }
+        double avgLength = totalLength / chunks.size();
+        Set<String> queryTerms = new HashSet<>(TextAnalyzer.tokenizeQuery(question));
+
+        double[] scores = new double[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            Map<String, Integer> termFreq = new HashMap<>();
+            for (String term : chunkTokens.get(i)) {
+                if (queryTerms.contains(term)) {
+                    termFreq.merge(term, 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<String, Integer> e : termFreq.entrySet()) {
+                double idf = bm25.idf(chunks.size(), docFreq.get(e.getKey()));
+                scores[i] += bm25.score(idf, e.getValue(), chunkTokens.get(i).size(), avgLength);
+            }
+        }
+
+        // 按得分从高到低（同分时靠前的块优先）在预算内挑选；都不相关时相当于取开头部分
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble((Integer i) -> -scores[i]).thenComparingInt(i -> i));
+
+        boolean[] selected = new boolean[chunks.size()];
+        int used = 0;
+        for (int i : order) {
+            int cost = estimateTokens(chunks.get(i));
+            if (used + cost <= tokenBudget) {
+                selected[i] = true;
+                used += cost;
+            }
+        }
+
+        StringBuilder context = new StringBuilder();
+        boolean gap = false;
+        for (int i = 0; i < chunks.size(); i++) {
+            if (!selected[i]) {
+                gap = true;
+                continue;
+            }
+            if (context.length() > 0 || gap) {
+                context.append(gap ? OMISSION : "\n");
+            }
+            context.append(chunks.get(i));
+            gap = false;
+        }
+        return context.toString();
+    }
+
+    // 粗略估算 token 数：中日韩文字约一字一个 token，其他字符约四个一个 token
+    static int estimateTokens(String text) {
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isIdeographic(cp) || Character.UnicodeScript.of(cp) == Character.UnicodeScript.HANGUL) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    // 按行合并成不超过 chunkChars 的块；单行过长时硬切
+    private List<String> chunk(String content) {
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : content.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            while (line.length() > chunkChars) {
+                flush(current, chunks);
+                chunks.add(line.substring(0, chunkChars));
+                line = line.substring(chunkChars);
+            }
+            if (current.length() > 0 && current.length() + 1 + line.length() > chunkChars) {
+                flush(current, chunks);
+            }
+            if (current.length() > 0) {
+                current.append('\n');
+            }
+            current.append(line);
+        }
+        flush(current, chunks);
+        return chunks;
+    }
+
+    private static void flush(StringBuilder current, List<String> chunks) {
+        if (current.length() > 0) {
+            chunks.add(current.toString());
+            current.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.notes.search;
+
+import com.example.notes.dto.NoteFacets;
+import com.example.notes.event.NoteChangedEvent;
+import com.example.notes.event.NoteSnapshot;
+import com.example.notes.repository.NoteRepository;
+import com.example.notes.util.Collation;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+// 按用户维护的分面计数（科目、分类、标签 -> 笔记数）以及笔记总数、收藏数。
+// 用户第一次访问时从数据库加载，之后由笔记变更事件增量维护，并定期与数据库对账；长时间未使用的用户会被淘汰。
+// 取值按数据库排序规则归并（不区分大小写和重音），与原先 SELECT DISTINCT 的结果一致
+@Component
+public class NoteFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteFacetIndex.class);
+
+    private final NoteRepository noteRepository;
+    private final TransactionTemplate loadTransaction;
+    private final Cache<Long, UserFacets> facets;
+
+    public NoteFacetIndex(NoteRepository noteRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.facets.max-users:1000}") long maxUsers,
+                          @Value("${app.facets.idle-timeout:30m}") Duration idleTimeout) {
+        this.noteRepository = noteRepository;
+
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTransaction.setReadOnly(true);
+
+        this.facets = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    // 获取用户全部分面及计数
+    public NoteFacets getFacets(Long userId) {
+        return facets.get(userId, this::load).toFacets();
+    }
+
+    // 用户的笔记总数、收藏数、科目数、分类数
+    public Totals getTotals(Long userId) {
+        return facets.get(userId, this::load).totals();
+    }
+
+    // 用户的所有科目（按值排序）
+    public List<String> getSubjects(Long userId) {
+        return facets.get(userId, this::load).values(FacetType.SUBJECT);
+    }
+
+    // 用户的所有分类（按值排序）
+    public List<String> getCategories(Long userId) {
+        return facets.get(userId, this::load).values(FacetType.CATEGORY);
+    }
+
+    // 用户的所有标签（按值排序）
+    public List<String> getTags(Long userId) {
+        return facets.get(userId, this::load).values(FacetType.TAG);
+    }
+
+    // 事务提交后增量更新已加载的用户；未加载的用户等下次访问时再全量加载
+    @TransactionalEventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        facets.asMap().computeIfPresent(event.getUserId(), (userId, userFacets) -> {
+            if (event.getAfter() != null) {
+                userFacets.put(event.getAfter());
+            } else {
+                userFacets.remove(event.getNoteId());
+            }
+            return userFacets;
+        });
+    }
+
+    // 清除某个用户的分面（下次访问时重建）
+    public void invalidate(Long userId) {
+        facets.invalidate(userId);
+    }
+
+    // 定期对账：用一条聚合查询核对已加载用户的计数，不一致（例如绕过 NoteService 直接改库）时清除重建。
+    // 科目数、分类数由数据库按排序规则去重，Collation.key 只是近似，两边可能有固定的差；
+    // 加载时记下这个差，对账时只有差发生变化才算漂移，避免同一用户每次对账都被重建
+    @Scheduled(fixedDelayString = "${app.facets.reconcile-interval:PT1H}",
+            initialDelayString = "${app.facets.reconcile-interval:PT1H}")
+    public void reconcile() {
+        for (Long userId : List.copyOf(facets.asMap().keySet())) {
+            UserFacets userFacets = facets.asMap().get(userId);
+            if (userFacets == null) {
+                continue;
+            }
+            Totals expected = loadTransaction.execute(status -> databaseTotals(userId));
+            Totals actual = userFacets.totals();
+            if (!userFacets.matches(expected)) {
+                logger.warn("Facet counts for user {} drifted from the database (expected {}, actual {}), rebuilding",
+                        userId, expected, actual);
+                facets.asMap().remove(userId, userFacets);
+            }
+        }
+    }
+
+    private Totals databaseTotals(Long userId) {
+        Object[] row = noteRepository.aggregateStatsByUserId(userId).get(0);
+        return new Totals(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                ((Number) row[2]).intValue(), ((Number) row[3]).intValue());
+    }
+
+    private UserFacets load(Long userId) {
+        return loadTransaction.execute(status -> {
+            Map<Long, Set<String>> tagsByNoteId = new HashMap<>();
+            for (Object[] row : noteRepository.findTagsByUserId(userId)) {
+                tagsByNoteId.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+            }
+
+            UserFacets userFacets = new UserFacets();
+            for (Object[] row : noteRepository.findFacetFieldsByUserId(userId)) {
+                Long id = (Long) row[0];
+                userFacets.put(id, new FacetEntry((String) row[1], (String) row[2],
+                        tagsByNoteId.getOrDefault(id, Set.of()), Boolean.TRUE.equals(row[3])));
+            }
+            // 同一事务内读取，与上面加载的数据是同一快照
+            userFacets.recordBaseline(databaseTotals(userId));
+            return userFacets;
+        });
+    }
+
+    private enum FacetType { SUBJECT, CATEGORY, TAG }
+
+    // 单个用户的分面：记录每篇笔记贡献了哪些值，使同一变更重复应用时计数仍然正确
+    private static final class UserFacets {
+
+        private final Map<Long, FacetEntry> notes = new HashMap<>();
+        // 比较键 -> 该键下的取值
+        private final Map<FacetType, TreeMap<String, FacetValue>> counts = new HashMap<>();
+        private long favoriteCount;
+        // 加载时数据库与内存的科目数、分类数之差（排序规则近似造成）
+        private int subjectOffset;
+        private int categoryOffset;
+
+        UserFacets() {
+            for (FacetType type : FacetType.values()) {
+                counts.put(type, new TreeMap<>());
+            }
+        }
+
+        void put(NoteSnapshot note) {
+            put(note.getId(), new FacetEntry(note.getSubject(), note.getCategory(), note.getTags(),
+                    note.isFavorite()));
+        }
+
+        synchronized void put(Long noteId, FacetEntry entry) {
+            FacetEntry old = notes.put(noteId, entry);
+            if (old != null) {
+                apply(old, -1);
+            }
+            apply(entry, 1);
+        }
+
+        synchronized void remove(Long noteId) {
+            FacetEntry old = notes.remove(noteId);
+            if (old != null) {
+                apply(old, -1);
+            }
+        }
+
+        synchronized List<String> values(FacetType type) {
+            List<String> result = new ArrayList<>();
+            counts.get(type).values().forEach(value -> result.add(value.display()));
+            return result;
+        }
+
+        synchronized Totals totals() {
+            return new Totals(notes.size(), favoriteCount,
+                    counts.get(FacetType.SUBJECT).size(), counts.get(FacetType.CATEGORY).size());
+        }
+
+        synchronized void recordBaseline(Totals database) {
+            Totals actual = totals();
+            subjectOffset = database.getTotalSubjects() - actual.getTotalSubjects();
+            categoryOffset = database.getTotalCategories() - actual.getTotalCategories();
+        }
+
+        // 笔记数、收藏数须完全一致；科目数、分类数与数据库的差须与加载时相同
+        synchronized boolean matches(Totals database) {
+            Totals actual = totals();
+            return actual.getTotalNotes() == database.getTotalNotes()
+                    && actual.getFavoriteNotes() == database.getFavoriteNotes()
+                    && actual.getTotalSubjects() + subjectOffset == database.getTotalSubjects()
+                    && actual.getTotalCategories() + categoryOffset == database.getTotalCategories();
+        }
+
+        synchronized NoteFacets toFacets() {
+            return new NoteFacets(counts(FacetType.SUBJECT), counts(FacetType.CATEGORY), counts(FacetType.TAG));
+        }
+
+        private List<NoteFacets.FacetCount> counts(FacetType type) {
+            List<NoteFacets.FacetCount> result = new ArrayList<>();
+            counts.get(type).values().forEach(value -> result.add(new NoteFacets.FacetCount(value.display(), value.count)));
+            return result;
+        }
+
+        private void apply(FacetEntry entry, int delta) {
+            adjust(FacetType.SUBJECT, entry.subject, delta);
+            adjust(FacetType.CATEGORY, entry.category, delta);
+            for (String tag : entry.tags) {
+                adjust(FacetType.TAG, tag, delta);
+            }
+            if (entry.favorite) {
+                favoriteCount += delta;
+            }
+        }
+
+        private void adjust(FacetType type, String value, int delta) {
+            if (value == null) {
+                return;
+            }
+            TreeMap<String, FacetValue> values = counts.get(type);
+            String key = Collation.key(value);
+            FacetValue facet = values.computeIfAbsent(key, k -> new FacetValue());
+            facet.adjust(value, delta);
+            if (facet.count <= 0) {
+                values.remove(key);
+            }
+        }
+    }
+
+    // 排序规则下相同的一组写法（例如 Math / math）：计数合并，显示值取按字符排序最小的写法，不随更新顺序变化
+    private static final class FacetValue {
+        private final TreeMap<String, Integer> spellings = new TreeMap<>();
+        private int count;
+
+        void adjust(String spelling, int delta) {
+            count += delta;
+            spellings.compute(spelling, (s, n) -> {
+                int updated = (n == null ? 0 : n) + delta;
+                return updated > 0 ? updated : null;
+            });
+        }
+
+        String display() {
+            return spellings.firstKey();
+        }
+    }
+
+    // 单篇笔记的分面取值
+    private static final class FacetEntry {
+        final String subject;
+        final String category;
+        final Set<String> tags;
+        final boolean favorite;
+
+        FacetEntry(String subject, String category, Set<String> tags, boolean favorite) {
+            this.subject = subject;
+            this.category = category;
+            this.tags = distinctTags(tags);
+            this.favorite = favorite;
+        }
+
+        // 同一篇笔记里排序规则下相同的标签只算一次（保留排序最小的写法）
+        private static Set<String> distinctTags(Set<String> tags) {
+            if (tags == null || tags.isEmpty()) {
+                return Set.of();
+            }
+            Map<String, String> byKey = new HashMap<>();
+            for (String tag : tags) {
+                if (tag != null) {
+                    byKey.merge(Collation.key(tag), tag, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+                }
+            }
+            return new HashSet<>(byKey.values());
+        }
+    }
+
+    // 用户笔记的汇总计数
+    public static final class Totals {
+        private final long totalNotes;
+        private final long favoriteNotes;
+        private final int totalSubjects;
+        private final int totalCategories;
+
+        public Totals(long totalNotes, long favoriteNotes, int totalSubjects, int totalCategories) {
+            this.totalNotes = totalNotes;
+            this.favoriteNotes = favoriteNotes;
+            this.totalSubjects = totalSubjects;
+            this.totalCategories = totalCategories;
+        }
+
+        public long getTotalNotes() { return totalNotes; }
+        public long getFavoriteNotes() { return favoriteNotes; }
+        public int getTotalSubjects() { return totalSubjects; }
+        public int getTotalCategories() { return totalCategories; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Totals)) return false;
+            Totals other = (Totals) o;
+            return totalNotes == other.totalNotes && favoriteNotes == other.favoriteNotes
+                    && totalSubjects == other.totalSubjects && totalCategories == other.totalCategories;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(totalNotes, favoriteNotes, totalSubjects, totalCategories);
+        }
+
+        @Override
+        public String toString() {
+            return "notes=" + totalNotes + ", favorites=" + favoriteNotes
+                    + ", subjects=" + totalSubjects + ", categories=" + totalCategories;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.notes.search;
+
+import com.example.notes.event.NoteChangedEvent;
+import com.example.notes.event.NoteSnapshot;
+import com.example.notes.repository.NoteRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 按用户划分的内存倒排索引（标题、内容、标签、科目、分类），用 BM25 排序。
+// 索引在用户第一次搜索时从数据库加载，之后由笔记变更事件增量维护；长时间未使用的用户索引会被淘汰
+@Component
+public class NoteSearchIndex {
+
+    // 各字段的词频权重
+    private static final int TITLE_WEIGHT = 3;
+    private static final int TAG_WEIGHT = 2;
+    private static final int SUBJECT_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int CONTENT_WEIGHT = 1;
+
+    private final NoteRepository noteRepository;
+    private final TransactionTemplate loadTransaction;
+    private final Cache<Long, UserIndex> indexes;
+    private final Bm25 bm25 = new Bm25();
+
+    public NoteSearchIndex(NoteRepository noteRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.search.index.max-users:1000}") long maxUsers,
+                           @Value("${app.search.index.idle-timeout:30m}") Duration idleTimeout) {
+        this.noteRepository = noteRepository;
+
+        // 加载用独立的只读事务，保证读到的是加载开始时已提交的最新数据
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTransaction.setReadOnly(true);
+
+        this.indexes = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    // 搜索用户笔记，返回按相关度降序排列的笔记ID
+    public List<Long> search(Long userId, String keyword, String subject, String category, Boolean isFavorite) {
+        List<String> terms = TextAnalyzer.tokenizeQuery(keyword);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        UserIndex index = indexes.get(userId, this::load);
+        return index.search(new LinkedHashSet<>(terms), subject, category, isFavorite);
+    }
+
+    // 事务提交后增量更新已加载的索引；未加载的用户等下次搜索时再全量加载
+    @TransactionalEventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        // computeIfPresent 与加载互斥：若该用户索引正在加载，会等待加载完成后再应用本次变更
+        indexes.asMap().computeIfPresent(event.getUserId(), (userId, index) -> {
+            if (event.getAfter() != null) {
+                index.put(event.getAfter());
+            } else {
+                index.remove(event.getNoteId());
+            }
+            return index;
+        });
+    }
+
+    // 清除某个用户的索引（下次搜索时重建）
+    public void invalidate(Long userId) {
+        indexes.invalidate(userId);
+    }
+
+    private UserIndex load(Long userId) {
+        return loadTransaction.execute(status -> {
+            UserIndex index = new UserIndex();
+            noteRepository.findAllWithTagsByUserId(userId)
+                    .forEach(note -> index.put(NoteSnapshot.of(note)));
+            return index;
+        });
+    }
+
+    // 单个用户的倒排索引
+    private final class UserIndex {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, IndexedNote> docs = new HashMap<>();
+        private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+        private long totalLength;
+
+        void put(NoteSnapshot note) {
+            Map<String, Integer> termFreqs = new HashMap<>();
+            addField(termFreqs, note.getTitle(), TITLE_WEIGHT);
+            addField(termFreqs, note.getContent(), CONTENT_WEIGHT);
+            addField(termFreqs, note.getSubject(), SUBJECT_WEIGHT);
+            addField(termFreqs, note.getCategory(), CATEGORY_WEIGHT);
+            for (String tag : note.getTags()) {
+                addField(termFreqs, tag, TAG_WEIGHT);
+            }
+            int length = termFreqs.values().stream().mapToInt(Integer::intValue).sum();
+            IndexedNote doc = new IndexedNote(note.getId(), note.getSubject(), note.getCategory(),
+                    note.isFavorite(), length, termFreqs);
+
+            lock.writeLock().lock();
+            try {
+                removeLocked(note.getId());
+                docs.put(doc.id, doc);
+                totalLength += length;
+                termFreqs.forEach((term, tf) ->
+                        postings.computeIfAbsent(term, t -> new HashMap<>()).put(doc.id, tf));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long noteId) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(noteId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeLocked(Long noteId) {
+            IndexedNote old = docs.remove(noteId);
+            if (old == null) {
+                return;
+            }
+            totalLength -= old.length;
+            for (String term : old.termFreqs.keySet()) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(noteId);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        List<Long> search(Collection<String> terms, String subject, String category, Boolean isFavorite) {
+            lock.readLock().lock();
+            try {
+                int docCount = docs.size();
+                if (docCount == 0) {
+                    return List.of();
+                }
+                double avgLength = (double) totalLength / docCount;
+
+                Map<Long, Double> scores = new HashMap<>();
+                for (String term : terms) {
+                    Map<Long, Integer> posting = postings.get(term);
+                    if (posting == null) {
+                        continue;
+                    }
+                    double idf = bm25.idf(docCount, posting.size());
+                    posting.forEach((noteId, tf) -> {
+                        IndexedNote doc = docs.get(noteId);
+                        if (doc.matches(subject, category, isFavorite)) {
+                            scores.merge(noteId, bm25.score(idf, tf, doc.length, avgLength), Double::sum);
+                        }
+                    });
+                }
+
+                List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+                ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+                return ranked.stream().map(Map.Entry::getKey).toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void addField(Map<String, Integer> termFreqs, String text, int weight) {
+            for (String token : TextAnalyzer.tokenize(text)) {
+                termFreqs.merge(token, weight, Integer::sum);
+            }
+        }
+    }
+
+    // 索引中的单篇笔记：保存过滤字段和词频，用于打分和删除
+    private static final class IndexedNote {
+        final Long id;
+        final String subject;
+        final String category;
+        final boolean favorite;
+        final int length;
+        final Map<String, Integer> termFreqs;
+
+        IndexedNote(Long id, String subject, String category, boolean favorite,
+                    int length, Map<String, Integer> termFreqs) {
+            this.id = id;
+            this.subject = subject;
+            this.category = category;
+            this.favorite = favorite;
+            this.length = length;
+            this.termFreqs = termFreqs;
+        }
+
+        boolean matches(String subject, String category, Boolean isFavorite) {
+            return (subject == null || subject.equals(this.subject))
+                    && (category == null || category.equals(this.category))
+                    && (isFavorite == null || isFavorite == this.favorite);
+        }
+    }
+}
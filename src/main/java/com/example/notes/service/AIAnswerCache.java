@@ -0,0 +1,201 @@
+package com.example.notes.service;
+
+import com.example.notes.entity.AIAnswer;
+import com.example.notes.event.NoteChangedEvent;
+import com.example.notes.repository.AIAnswerRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// AI 回答缓存：以 (模型, 规范化后的笔记内容, 规范化后的问题) 的 SHA-256 为键，内存中有容量上限和过期时间，
+// 可选地持久化到 ai_answers 表以便重启后仍能命中。请求带 noteId 时记录键与笔记的关系，笔记内容变化或删除后失效
+@Component
+public class AIAnswerCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AIAnswerCache.class);
+
+    private final AIAnswerRepository aiAnswerRepository;
+    private final TransactionTemplate invalidateTransaction;
+    private final boolean persistent;
+    private final Duration ttl;
+    private final Cache<String, CachedAnswer> answers;
+    private final Map<Long, Set<String>> keysByNote = new ConcurrentHashMap<>();
+    private final LongAdder persistentHits = new LongAdder();
+    private final LongAdder savedUpstreamMillis = new LongAdder();
+
+    public AIAnswerCache(AIAnswerRepository aiAnswerRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.ai.cache.max-size:10000}") long maxSize,
+                         @Value("${app.ai.cache.ttl:7d}") Duration ttl,
+                         @Value("${app.ai.cache.persistent:false}") boolean persistent) {
+        this.aiAnswerRepository = aiAnswerRepository;
+        this.persistent = persistent;
+
+        // 失效监听器在笔记事务提交后运行，此时原事务已结束，删除需要在独立的新事务中执行
+        if (persistent) {
+            this.invalidateTransaction = new TransactionTemplate(transactionManager);
+            this.invalidateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        } else {
+            this.invalidateTransaction = null;
+        }
+        this.ttl = ttl;
+        this.answers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .removalListener((String key, CachedAnswer value, RemovalCause cause) -> {
+                    // 同一个键被覆盖时仍然有效，不解除关联
+                    if (cause != RemovalCause.REPLACED && value != null && value.getNoteId() != null) {
+                        untrack(value.getNoteId(), key);
+                    }
+                })
+                .build();
+    }
+
+    // 计算缓存键：空白折叠、首尾去空白，问题不区分大小写
+    public String key(String model, String noteContent, String question) {
+        return DigestUtils.sha256Hex(model + '\u0000' + normalize(noteContent) + '\u0000'
+                + normalize(question).toLowerCase(Locale.ROOT));
+    }
+
+    // 查找缓存回答：先查内存，未命中且启用持久化时再查表，命中后回填内存
+    public Optional<String> get(String key) {
+        CachedAnswer cached = answers.getIfPresent(key);
+        if (cached == null && persistent) {
+            cached = aiAnswerRepository.findFresh(key, LocalDateTime.now().minus(ttl))
+                    .map(a -> new CachedAnswer(a.getAnswer(), a.getNoteId(), a.getUpstreamMillis()))
+                    .orElse(null);
+            if (cached != null) {
+                persistentHits.increment();
+                track(cached.getNoteId(), key);
+                answers.put(key, cached);
+            }
+        }
+        if (cached == null) {
+            return Optional.empty();
+        }
+        savedUpstreamMillis.add(cached.getUpstreamMillis());
+        return Optional.of(cached.getAnswer());
+    }
+
+    // 保存上游返回的回答；noteId 可为空（此时只能等待过期，无法随笔记变化失效）
+    public void put(String key, Long noteId, String answer, long upstreamMillis) {
+        track(noteId, key);
+        answers.put(key, new CachedAnswer(answer, noteId, upstreamMillis));
+        if (persistent) {
+            try {
+                aiAnswerRepository.save(new AIAnswer(key, noteId, answer, upstreamMillis));
+            } catch (RuntimeException e) {
+                // 持久化失败不影响本次回答
+                logger.warn("Failed to persist AI answer: {}", e.getMessage());
+            }
+        }
+    }
+
+    // 事务提交后，笔记被删除或内容变化时失效基于旧内容的回答
+    @TransactionalEventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.getBefore() == null) {
+            return;
+        }
+        if (event.getAfter() != null
+                && Objects.equals(event.getBefore().getContent(), event.getAfter().getContent())) {
+            return;
+        }
+        Long noteId = event.getNoteId();
+        Set<String> keys = keysByNote.remove(noteId);
+        if (keys != null) {
+            answers.invalidateAll(keys);
+        }
+        if (persistent) {
+            try {
+                invalidateTransaction.executeWithoutResult(status -> aiAnswerRepository.deleteByNoteId(noteId));
+            } catch (RuntimeException e) {
+                logger.warn("Failed to delete persisted AI answers for note {}: {}", noteId, e.getMessage());
+            }
+        }
+    }
+
+    // 定期清理持久化表中过期的回答
+    @Scheduled(fixedDelayString = "${app.ai.cache.purge-interval:PT6H}",
+            initialDelayString = "${app.ai.cache.purge-interval:PT6H}")
+    public void purgeExpired() {
+        if (persistent) {
+            int purged = aiAnswerRepository.deleteOlderThan(LocalDateTime.now().minus(ttl));
+            logger.info("Purged {} expired AI answers", purged);
+        }
+    }
+
+    // 命中率及节省的上游耗时
+    public Map<String, Object> stats() {
+        CacheStats stats = answers.stats();
+        long requests = stats.requestCount();
+        // 内存未命中但持久化表命中的也算命中
+        long hits = stats.hitCount() + persistentHits.sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requests", requests);
+        result.put("hits", hits);
+        result.put("misses", requests - hits);
+        result.put("hitRate", requests == 0 ? 0.0 : (double) hits / requests);
+        result.put("persistentHits", persistentHits.sum());
+        result.put("savedUpstreamMillis", savedUpstreamMillis.sum());
+        result.put("size", answers.estimatedSize());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    private void track(Long noteId, String key) {
+        if (noteId != null) {
+            keysByNote.computeIfAbsent(noteId, id -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    private void untrack(Long noteId, String key) {
+        keysByNote.computeIfPresent(noteId, (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ");
+    }
+
+    private static final class CachedAnswer {
+        private final String answer;
+        private final Long noteId;
+        private final long upstreamMillis;
+
+        CachedAnswer(String answer, Long noteId, long upstreamMillis) {
+            this.answer = answer;
+            this.noteId = noteId;
+            this.upstreamMillis = upstreamMillis;
+        }
+
+        String getAnswer() { return answer; }
+        Long getNoteId() { return noteId; }
+        long getUpstreamMillis() { return upstreamMillis; }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.notes.service;
+
+import com.example.notes.dto.AIRequest;
+import com.example.notes.entity.Note;
+import com.example.notes.exception.AIServiceException;
+import com.example.notes.exception.NoteNotFoundException;
+import com.example.notes.search.ContextSelector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// AI 问答：按 noteId 在服务端加载笔记（校验归属），先查回答缓存，未命中再调用 Gemini 并把回答写入缓存。
+// 长笔记只把与问题最相关的片段放入提示词。
+// 相同的请求（缓存键相同）同时到达时只调用一次上游，其余请求等待同一个结果
+@Service
+public class AIChatService {
+
+    private final GeminiClient geminiClient;
+    private final AIAnswerCache answerCache;
+    private final NoteService noteService;
+    private final ContextSelector contextSelector;
+    private final int maxWaiters;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+    public AIChatService(GeminiClient geminiClient, AIAnswerCache answerCache,
+                         NoteService noteService, ContextSelector contextSelector,
+                         @Value("${app.ai.single-flight.max-waiters:100}") int maxWaiters) {
+        this.geminiClient = geminiClient;
+        this.answerCache = answerCache;
+        this.noteService = noteService;
+        this.contextSelector = contextSelector;
+        this.maxWaiters = maxWaiters;
+    }
+
+    public boolean isConfigured() {
+        return geminiClient.isConfigured();
+    }
+
+    // 解析请求：带 noteId 时从数据库读取当前用户的笔记，否则使用请求中的 noteContent（兼容旧客户端）
+    public PreparedChat prepare(Long userId, AIRequest request) {
+        if (request.getQuestion() == null || request.getQuestion().isBlank()) {
+            throw new IllegalArgumentException("Question is required");
+        }
+        String content = request.getNoteContent();
+        if (request.getNoteId() != null) {
+            Note note = noteService.getUserNoteById(userId, request.getNoteId())
+                    .orElseThrow(() -> new NoteNotFoundException("Note not found or access denied"));
+            content = note.getContent();
+        }
+        String key = answerCache.key(geminiClient.getModel(), content, request.getQuestion());
+        return new PreparedChat(request.getNoteId(), content, request.getQuestion(), key);
+    }
+
+    // 获取完整回答
+    public CompletableFuture<String> chat(PreparedChat request) {
+        String key = request.cacheKey;
+        Optional<String> cached = answerCache.get(key);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        Flight flight = new Flight();
+        Flight existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            if (existing.waiters.incrementAndGet() > maxWaiters) {
+                existing.waiters.decrementAndGet();
+                return CompletableFuture.failedFuture(new AIServiceException("Too many requests waiting for the same AI answer"));
+            }
+            // 返回副本，某个等待者取消时不影响其他等待者
+            return existing.result.copy();
+        }
+
+        long start = System.nanoTime();
+        geminiClient.generateContent(buildPrompt(request)).whenComplete((answer, ex) -> {
+            // 先写缓存再移除，避免两者之间到达的请求再次调用上游
+            if (ex == null) {
+                answerCache.put(key, request.noteId, answer, millisSince(start));
+            }
+            inFlight.remove(key, flight);
+            if (ex == null) {
+                flight.result.complete(answer);
+            } else {
+                flight.result.completeExceptionally(ex);
+            }
+        });
+        return flight.result.copy();
+    }
+
+    // 缓存中已有的回答（流式接口命中时直接整段返回）
+    public Optional<String> cachedAnswer(PreparedChat request) {
+        return answerCache.get(request.cacheKey);
+    }
+
+    // 流式获取回答，完整收到后写入缓存；中途取消或出错的回答不缓存
+    public GeminiClient.TextStream stream(PreparedChat request, GeminiClient.TextConsumer onText) {
+        String key = request.cacheKey;
+        StringBuilder answer = new StringBuilder();
+        long start = System.nanoTime();
+        GeminiClient.TextStream stream = geminiClient.streamContent(buildPrompt(request), text -> {
+            answer.append(text);
+            onText.accept(text);
+        });
+        stream.completion().thenRun(() -> {
+            if (answer.length() > 0) {
+                answerCache.put(key, request.noteId, answer.toString(), millisSince(start));
+            }
+        });
+        return stream;
+    }
+
+    // 缓存键基于完整笔记内容，上下文选择只影响发给上游的提示词
+    String buildPrompt(PreparedChat request) {
+        return String.format(
+                "你是一个专业的学习助手。用户正在学习这篇笔记：\n\n【笔记内容】\n%s\n\n【用户问题】\n%s\n\n请基于笔记内容给出详细、有帮助的回答。用中文回答，语气友好专业。",
+                contextSelector.select(request.noteContent, request.question),
+                request.question
+        );
+    }
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    // 解析后的问答请求
+    public static final class PreparedChat {
+        private final Long noteId;
+        private final String noteContent;
+        private final String question;
+        private final String cacheKey;
+
+        private PreparedChat(Long noteId, String noteContent, String question, String cacheKey) {
+            this.noteId = noteId;
+            this.noteContent = noteContent;
+            this.question = question;
+            this.cacheKey = cacheKey;
+        }
+    }
+
+    // 一次进行中的上游调用；waiters 为搭车等待的请求数（不含发起者）
+    private static final class Flight {
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+    }
+}
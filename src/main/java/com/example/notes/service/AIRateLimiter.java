@@ -0,0 +1,76 @@
+package com.example.notes.service;
+
+import com.example.notes.exception.RateLimitExceededException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// AI 接口的按用户限流：每个用户一个令牌桶，容量为突发上限，每隔 refillInterval 补充一个令牌。
+// 桶放在有容量上限的缓存中，长时间不活跃的用户自动移除；每个桶单独加锁，不同用户之间互不阻塞
+@Component
+public class AIRateLimiter {
+
+    private final int capacity;
+    private final long refillNanos;
+    private final Cache<Long, TokenBucket> buckets;
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AIRateLimiter(@Value("${app.ai.rate-limit.capacity:10}") int capacity,
+                         @Value("${app.ai.rate-limit.refill-interval:6s}") Duration refillInterval,
+                         @Value("${app.ai.rate-limit.max-users:100000}") long maxUsers) {
+        this.capacity = capacity;
+        this.refillNanos = refillInterval.toNanos();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                // 闲置到桶重新装满后，丢弃与新建等价
+                .expireAfterAccess(refillInterval.multipliedBy(capacity))
+                .build();
+    }
+
+    // 消耗一个令牌，没有令牌时抛出 RateLimitExceededException（带建议的重试等待时间）
+    public void acquire(Long userId) {
+        TokenBucket bucket = buckets.get(userId, id -> new TokenBucket());
+        long waitNanos = bucket.tryConsume(System.nanoTime());
+        if (waitNanos > 0) {
+            rejected.increment();
+            throw new RateLimitExceededException("Too many AI requests, please try again later",
+                    Duration.ofNanos(waitNanos));
+        }
+        allowed.increment();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("allowed", allowed.sum());
+        result.put("rejected", rejected.sum());
+        result.put("trackedUsers", buckets.estimatedSize());
+        return result;
+    }
+
+    private final class TokenBucket {
+        private long tokens = capacity;
+        private long lastRefill = System.nanoTime();
+
+        // 成功返回 0，否则返回距离下一个令牌的纳秒数
+        synchronized long tryConsume(long now) {
+            long elapsed = now - lastRefill;
+            if (elapsed >= refillNanos) {
+                long refill = elapsed / refillNanos;
+                tokens = Math.min(capacity, tokens + refill);
+                lastRefill = tokens == capacity ? now : lastRefill + refill * refillNanos;
+            }
+            if (tokens > 0) {
+                tokens--;
+                return 0;
+            }
+            return refillNanos - (now - lastRefill);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.notes.service;
+
+import com.example.notes.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 用户激活状态缓存：请求路径上判断用户是否存在且激活，不必每次查询并加载整行 User。
+// 有容量上限和过期时间；用户状态变更时由 UserService 失效对应条目
+@Component
+public class ActiveUserCache {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Boolean> activeUsers;
+
+    public ActiveUserCache(UserRepository userRepository,
+                           @Value("${app.users.active-cache.max-size:10000}") long maxSize,
+                           @Value("${app.users.active-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.activeUsers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // 用户是否存在且处于激活状态（不存在或已停用的结果同样缓存，直到过期或被失效）
+    public boolean isActive(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        return activeUsers.get(userId, userRepository::existsByIdAndIsActiveTrue);
+    }
+
+    // 失效某个用户的缓存：立即移除，并在当前事务提交后再移除一次，
+    // 避免提交前并发请求把旧状态重新读回缓存
+    public void invalidate(Long userId) {
+        activeUsers.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    activeUsers.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    // 命中率、容量与淘汰次数等统计
+    public Map<String, Object> stats() {
+        CacheStats stats = activeUsers.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requests", stats.requestCount());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.requestCount() == 0 ? 0.0 : stats.hitRate());
+        result.put("size", activeUsers.estimatedSize());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+}
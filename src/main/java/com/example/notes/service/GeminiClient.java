@@ -0,0 +1,336 @@
+package com.example.notes.service;
+
+import com.example.notes.exception.AIServiceException;
+import com.example.notes.util.CircuitBreaker;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Gemini 接口客户端：复用连接的异步 HttpClient，带连接/请求超时、并发上限（舱壁）和熔断。
+// 调用方拿到 CompletableFuture 后即可释放 Servlet 线程，上游变慢不会占满 Tomcat 线程池
+@Component
+public class GeminiClient {
+
+    private static final String DEFAULT_API_KEY = "your-api-key-here";
+
+    private final ObjectMapper objectMapper;
+    private final String apiKey;
+    private final String model;
+    private final URI apiUri;
+    private final URI streamUri;
+    private final Duration requestTimeout;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final CircuitBreaker circuitBreaker;
+    private final ExecutorService executor;
+    // 调用方回调（写浏览器、写缓存表等可能阻塞的操作）在这里执行，不占用 HttpClient 的回调线程
+    private final ExecutorService deliveryExecutor;
+    private final HttpClient httpClient;
+
+    public GeminiClient(ObjectMapper objectMapper,
+                        CircuitBreaker geminiCircuitBreaker,
+                        @Value("${gemini.api.key:your-api-key-here}") String apiKey,
+                        @Value("${gemini.api.model:gemini-2.0-flash}") String model,
+                        @Value("${gemini.api.url:https://generativelanguage.googleapis.com/v1beta/models/${gemini.api.model:gemini-2.0-flash}:generateContent}") String apiUrl,
+                        @Value("${gemini.api.stream-url:https://generativelanguage.googleapis.com/v1beta/models/${gemini.api.model:gemini-2.0-flash}:streamGenerateContent?alt=sse}") String streamUrl,
+                        @Value("${gemini.http.connect-timeout:5s}") Duration connectTimeout,
+                        @Value("${gemini.http.request-timeout:60s}") Duration requestTimeout,
+                        @Value("${gemini.http.max-in-flight:32}") int maxInFlight,
+                        @Value("${gemini.http.threads:4}") int threads) {
+        this.objectMapper = objectMapper;
+        this.apiKey = apiKey;
+        this.model = model;
+        this.apiUri = URI.create(apiUrl);
+        this.streamUri = URI.create(streamUrl);
+        this.requestTimeout = requestTimeout;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.circuitBreaker = geminiCircuitBreaker;
+
+        // 只用于处理响应回调，请求等待期间不占用线程
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "gemini-http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 按需创建线程：每个流同一时刻最多一个投递任务，流的数量受舱壁限制，
+        // 完整回答的收尾任务很短，因此线程数实际上不会超过 max-in-flight 太多
+        AtomicInteger deliveryCounter = new AtomicInteger();
+        this.deliveryExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "gemini-delivery-" + deliveryCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isBlank() && !apiKey.equals(DEFAULT_API_KEY);
+    }
+
+    // 发送提示词并返回模型回答文本。并发数已满或熔断打开时立即失败，而不是排队等待。
+    // 成功的回答在投递线程池中交给调用方，调用方的后续处理（例如写持久化缓存）不会占用 HttpClient 线程
+    public CompletableFuture<String> generateContent(String prompt) {
+        long permit;
+        try {
+            permit = admit();
+        } catch (AIServiceException rejected) {
+            return CompletableFuture.failedFuture(rejected);
+        }
+        long start = System.nanoTime();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(apiUri)
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .header("X-goog-api-key", apiKey)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(requestBody(prompt)))
+                    .build();
+
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, ex) -> {
+                        inFlight.release();
+                        recordOutcome(permit, response != null ? response.statusCode() : -1, start);
+                    })
+                    .thenApplyAsync(this::extractText, deliveryExecutor);
+        } catch (RuntimeException | IOException e) {
+            inFlight.release();
+            circuitBreaker.onFailure(permit);
+            return CompletableFuture.failedFuture(new AIServiceException("Failed to call AI service", e));
+        }
+    }
+
+    // 流式生成：上游以 SSE 返回，每收到一段文本就交给 onText。
+    // 每次只向上游请求一行，onText 处理完（例如写给浏览器）才读取下一行，下游慢时上游读取也随之放慢。
+    // onText 和 completion() 的完成都按顺序在投递线程池中执行，浏览器不读取时只阻塞该流自己的投递任务；
+    // onText 抛出异常或调用 TextStream.cancel() 时取消上游请求
+    public TextStream streamContent(String prompt, TextConsumer onText) {
+        long permit;
+        try {
+            permit = admit();
+        } catch (AIServiceException rejected) {
+            TextStream rejectedStream = new TextStream(onText);
+            rejectedStream.done.completeExceptionally(rejected);
+            return rejectedStream;
+        }
+        TextStream stream = new TextStream(onText);
+        stream.done.whenComplete((v, ex) -> inFlight.release());
+        // 熔断器按响应头到达的时间和状态码记录；流的正文时长不计入慢调用
+        long start = System.nanoTime();
+        AtomicBoolean recorded = new AtomicBoolean();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(streamUri)
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .header("X-goog-api-key", apiKey)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(requestBody(prompt)))
+                    .build();
+
+            httpClient.sendAsync(request, info -> {
+                if (recorded.compareAndSet(false, true)) {
+                    recordOutcome(permit, info.statusCode(), start);
+                }
+                if (info.statusCode() != 200) {
+                    stream.fail(new AIServiceException("AI service returned HTTP " + info.statusCode()));
+                    return HttpResponse.BodySubscribers.discarding();
+                }
+                return HttpResponse.BodySubscribers.fromLineSubscriber(stream);
+            }).whenComplete((response, ex) -> {
+                if (ex != null) {
+                    if (recorded.compareAndSet(false, true)) {
+                        circuitBreaker.onFailure(permit);
+                    }
+                    stream.fail(ex);
+                }
+            });
+        } catch (RuntimeException | IOException e) {
+            if (recorded.compareAndSet(false, true)) {
+                circuitBreaker.onFailure(permit);
+            }
+            stream.done.completeExceptionally(new AIServiceException("Failed to call AI service", e));
+        }
+        return stream;
+    }
+
+    // 舱壁与熔断的状态
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("maxInFlight", maxInFlight);
+        result.put("inFlight", maxInFlight - inFlight.availablePermits());
+        result.put("circuitBreaker", circuitBreaker.snapshot());
+        return result;
+    }
+
+    // 先占并发名额，再询问熔断器；放行时返回熔断器许可，否则抛出拒绝原因
+    private long admit() {
+        if (!inFlight.tryAcquire()) {
+            throw new AIServiceException("Too many AI requests in flight");
+        }
+        long permit = circuitBreaker.tryAcquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            inFlight.release();
+            throw new AIServiceException("AI service is temporarily unavailable (circuit open)");
+        }
+        return permit;
+    }
+
+    // 网络错误、5xx 和 429 计为失败，其余状态说明上游正常
+    private void recordOutcome(long permit, int statusCode, long startNanos) {
+        if (statusCode < 0 || statusCode >= 500 || statusCode == 429) {
+            circuitBreaker.onFailure(permit);
+        } else {
+            circuitBreaker.onSuccess(permit, System.nanoTime() - startNanos);
+        }
+    }
+
+    private byte[] requestBody(String prompt) throws IOException {
+        Map<String, Object> body = Map.of(
+                "contents", List.of(Map.of("parts", List.of(Map.of("text", prompt)))));
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    // 取 candidates[0].content.parts[0].text
+    private String extractText(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            throw new AIServiceException("AI service returned HTTP " + response.statusCode());
+        }
+        return parseAnswer(response.body());
+    }
+
+    // 解析 generateContent 响应体
+    String parseAnswer(byte[] body) {
+        try {
+            JsonNode text = textNode(objectMapper.readTree(body));
+            if (!text.isTextual()) {
+                throw new AIServiceException("AI service returned no answer");
+            }
+            return text.asText();
+        } catch (IOException e) {
+            throw new AIServiceException("Malformed AI service response", e);
+        }
+    }
+
+    private static JsonNode textNode(JsonNode response) {
+        return response.path("candidates").path(0).path("content").path("parts").path(0).path("text");
+    }
+
+    @FunctionalInterface
+    public interface TextConsumer {
+        void accept(String text) throws IOException;
+    }
+
+    // 一次流式调用：completion() 在上游结束、出错或被取消时完成
+    public final class TextStream implements Flow.Subscriber<String> {
+
+        private final TextConsumer onText;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled;
+        // 投递队列的尾部：每个任务在前一个任务完成后才执行，保证同一个流的回调有序且不并发
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+        private TextStream(TextConsumer onText) {
+            this.onText = onText;
+        }
+
+        public CompletableFuture<Void> completion() {
+            return done;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+            done.completeExceptionally(new CancellationException("AI stream cancelled"));
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            deliver(() -> handle(line));
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            deliver(() -> done.complete(null));
+        }
+
+        private void fail(Throwable throwable) {
+            deliver(() -> done.completeExceptionally(throwable));
+        }
+
+        private synchronized void deliver(Runnable task) {
+            tail = tail.thenRunAsync(task, deliveryExecutor);
+        }
+
+        private void handle(String line) {
+            if (cancelled || done.isDone()) {
+                return;
+            }
+            try {
+                // SSE 中只关心 data 行，其余（空行、注释）跳过
+                if (line.startsWith("data:")) {
+                    JsonNode text = textNode(objectMapper.readTree(line.substring(5).trim()));
+                    if (text.isTextual() && !text.asText().isEmpty()) {
+                        onText.accept(text.asText());
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                subscription.cancel();
+                done.completeExceptionally(e);
+                return;
+            }
+            subscription.request(1);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        deliveryExecutor.shutdownNow();
+    }
+}
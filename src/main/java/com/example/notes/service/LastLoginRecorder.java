@@ -0,0 +1,75 @@
+package com.example.notes.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 最后登录时间的延迟批量写入：登录时只在内存中记录每个用户最新的登录时间，
+// 定期用一个 JDBC 批次写回 users 表，避免每次登录都对用户行加锁写一次；应用关闭前会写回剩余记录
+@Component
+public class LastLoginRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastLoginRecorder.class);
+
+    // 只会把时间往后推，写回顺序与登录顺序不一致时也不会覆盖成更早的时间
+    private static final String UPDATE_LAST_LOGIN =
+            "UPDATE users SET last_login_at = ? WHERE id = ? AND (last_login_at IS NULL OR last_login_at < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public LastLoginRecorder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void record(Long userId, LocalDateTime loginTime) {
+        pending.merge(userId, loginTime, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    // 尚未写回的最后登录时间
+    public Optional<LocalDateTime> getPending(Long userId) {
+        return Optional.ofNullable(pending.get(userId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.last-login.flush-interval:PT10S}",
+            initialDelayString = "${app.users.last-login.flush-interval:PT10S}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        for (Long userId : pending.keySet()) {
+            // 逐个取出；取出之后的新登录留到下一批
+            LocalDateTime loginTime = pending.remove(userId);
+            if (loginTime != null) {
+                Timestamp ts = Timestamp.valueOf(loginTime);
+                batch.add(new Object[]{ts, userId, ts});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN, batch);
+        } catch (RuntimeException e) {
+            // 写回失败时放回缓冲区，下次重试（期间有更新的时间则保留较新的）
+            for (Object[] row : batch) {
+                record((Long) row[1], ((Timestamp) row[0]).toLocalDateTime());
+            }
+            logger.warn("Failed to flush {} last-login timestamps: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.notes.service;
+
+import com.example.notes.entity.NoteChange;
+import com.example.notes.event.NoteChangedEvent;
+import com.example.notes.repository.NoteChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+// 写入笔记变更日志（note_changes）。在写笔记的同一事务内收集变更，提交前用一个 JDBC 批次写入，
+// 与笔记本身的修改同时提交或回滚；并定期清理过期记录、压缩被覆盖的记录
+@Component
+public class NoteChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteChangeLog.class);
+
+    private static final String INSERT_CHANGE =
+            "INSERT INTO note_changes (user_id, note_id, type, changed_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NoteChangeRepository noteChangeRepository;
+    private final TransactionTemplate compactionTransaction;
+    private final Duration retention;
+    private final Duration visibilityLag;
+    // 每个短事务最多处理的行数（清理）或序号跨度（压缩），避免长时间持锁阻塞笔记写入
+    private final int compactionBatchSize;
+
+    public NoteChangeLog(JdbcTemplate jdbcTemplate,
+                         NoteChangeRepository noteChangeRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.notes.sync.retention:30d}") Duration retention,
+                         @Value("${app.notes.sync.visibility-lag:5s}") Duration visibilityLag,
+                         @Value("${app.notes.sync.compaction-batch-size:5000}") int compactionBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.noteChangeRepository = noteChangeRepository;
+        this.compactionTransaction = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.visibilityLag = visibilityLag;
+        this.compactionBatchSize = compactionBatchSize;
+    }
+
+    // 同步监听（在发布者的事务内执行）：把变更记到当前事务的缓冲区，提交前统一写入
+    @EventListener
+    @SuppressWarnings("unchecked")
+    public void onNoteChanged(NoteChangedEvent event) {
+        NoteChange.Type type = event.getAfter() != null ? NoteChange.Type.UPSERT : NoteChange.Type.DELETE;
+        Object[] row = {event.getUserId(), event.getNoteId(), type.name()};
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(List.<Object[]>of(row));
+            return;
+        }
+
+        List<Object[]> pending = (List<Object[]>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Object[]> buffer = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write(buffer);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(NoteChangeLog.this);
+                }
+            });
+            pending = buffer;
+        }
+        pending.add(row);
+    }
+
+    // 清理超过保留期的记录，并删除已被同一笔记更新记录覆盖的旧记录。
+    // 分批进行，每批一个短事务
+    @Scheduled(fixedDelayString = "${app.notes.sync.compaction-interval:PT6H}",
+            initialDelayString = "${app.notes.sync.compaction-interval:PT6H}")
+    public void compact() {
+        LocalDateTime now = LocalDateTime.now();
+
+        LocalDateTime cutoff = now.minus(retention);
+        int expired = 0;
+        int deleted;
+        do {
+            deleted = inTransaction(() -> noteChangeRepository.deleteOlderThan(cutoff, compactionBatchSize));
+            expired += deleted;
+        } while (deleted == compactionBatchSize);
+
+        // 覆盖者必须已可见，所以被覆盖的记录序号一定小于当前可见的最大序号
+        LocalDateTime visibleBefore = now.minus(visibilityLag);
+        Long from = noteChangeRepository.findEarliestId();
+        Long to = noteChangeRepository.findLatestId(visibleBefore);
+        int superseded = 0;
+        if (from != null && to != null) {
+            for (long start = from; start < to; start += compactionBatchSize) {
+                long batchStart = start;
+                long batchEnd = Math.min(start + compactionBatchSize, to);
+                superseded += inTransaction(() ->
+                        noteChangeRepository.deleteSuperseded(batchStart, batchEnd, visibleBefore));
+            }
+        }
+        logger.info("Note change log compacted: {} expired, {} superseded", expired, superseded);
+    }
+
+    private int inTransaction(IntSupplier work) {
+        Integer result = compactionTransaction.execute(status -> work.getAsInt());
+        return result != null ? result : 0;
+    }
+
+    private void write(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp changedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            args.add(new Object[]{row[0], row[1], row[2], changedAt});
+        }
+        jdbcTemplate.batchUpdate(INSERT_CHANGE, args);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.notes.service;
+
+import com.example.notes.dto.BulkImportResponse;
+import com.example.notes.entity.Note;
+import com.example.notes.entity.User;
+import com.example.notes.event.NoteChangedEvent;
+import com.example.notes.event.NoteSnapshot;
+import com.example.notes.exception.UnauthorizedException;
+import com.example.notes.repository.NoteBatchRepository;
+import com.example.notes.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// 笔记批量导入：边解析请求体中的 JSON 数组边写库，每 batchSize 条一个 JDBC 批次、一个事务
+@Service
+public class NoteImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteImportService.class);
+
+    private final NoteBatchRepository noteBatchRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate batchTransaction;
+    private final int batchSize;
+    private final int maxItems;
+
+    public NoteImportService(NoteBatchRepository noteBatchRepository,
+                             UserRepository userRepository,
+                             ApplicationEventPublisher eventPublisher,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.notes.bulk.batch-size:500}") int batchSize,
+                             @Value("${app.notes.bulk.max-items:20000}") int maxItems) {
+        this.noteBatchRepository = noteBatchRepository;
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxItems = maxItems;
+    }
+
+    // 导入笔记：请求体为 JSON 数组，逐条解析校验，合法的按批写入；返回每一条的处理结果
+    public BulkImportResponse importNotes(Long userId, InputStream body) throws IOException {
+        User user = userRepository.findByIdAndIsActiveTrue(userId)
+                .orElseThrow(() -> new UnauthorizedException("User not found or inactive"));
+
+        BulkImportResponse response = new BulkImportResponse();
+        List<Note> batch = new ArrayList<>(batchSize);
+        List<Integer> batchIndexes = new ArrayList<>(batchSize);
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Request body must be a JSON array of notes");
+            }
+
+            int index = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    response.setAbortedReason("Unexpected end of input");
+                    break;
+                }
+                if (index >= maxItems) {
+                    response.setAbortedReason("Too many items, at most " + maxItems + " notes per request");
+                    break;
+                }
+
+                // 每次只把一个数组元素读成树，单条格式错误不影响后续解析
+                JsonNode node = objectMapper.readTree(parser);
+                try {
+                    Note note = toNote(node, user);
+                    batch.add(note);
+                    batchIndexes.add(index);
+                } catch (IllegalArgumentException e) {
+                    response.addFailed(index, e.getMessage());
+                }
+
+                if (batch.size() >= batchSize) {
+                    flush(userId, batch, batchIndexes, response);
+                }
+                index++;
+            }
+        } catch (JsonProcessingException e) {
+            response.setAbortedReason("Malformed JSON: " + e.getOriginalMessage());
+        }
+
+        // 终止前已解析出的合法条目照常写入
+        flush(userId, batch, batchIndexes, response);
+        response.getItems().sort(Comparator.comparingInt(BulkImportResponse.ItemResult::getIndex));
+        return response;
+    }
+
+    private Note toNote(JsonNode node, User user) {
+        Note note;
+        try {
+            note = objectMapper.treeToValue(node, Note.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid note: " + e.getOriginalMessage());
+        }
+        if (note == null) {
+            throw new IllegalArgumentException("Invalid note: null");
+        }
+
+        Set<ConstraintViolation<Note>> violations = validator.validate(note);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+
+        // 与 createNote 保持一致的默认值；ID 和时间戳由服务端生成
+        LocalDateTime now = LocalDateTime.now();
+        note.setId(null);
+        note.setCreatedAt(now);
+        note.setUpdatedAt(now);
+        if (note.getIsFavorite() == null) {
+            note.setIsFavorite(false);
+        }
+        if (note.getIsPublic() == null) {
+            note.setIsPublic(false);
+        }
+        if (note.getTags() == null) {
+            note.setTags(new HashSet<>());
+        }
+        note.setUser(user);
+        return note;
+    }
+
+    // 写入一个批次（单独事务），成功后发布创建事件
+    private void flush(Long userId, List<Note> batch, List<Integer> batchIndexes, BulkImportResponse response) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                noteBatchRepository.insertAll(userId, batch);
+                batch.forEach(note -> eventPublisher.publishEvent(NoteChangedEvent.created(NoteSnapshot.of(note))));
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                response.addCreated(batchIndexes.get(i), batch.get(i).getId());
+            }
+        } catch (DataAccessException | IllegalStateException e) {
+            logger.error("Bulk import batch failed for user {}: {}", userId, e.getMessage(), e);
+            for (Integer index : batchIndexes) {
+                response.addFailed(index, "Batch rolled back due to a database error");
+            }
+        }
+
+        batch.clear();
+        batchIndexes.clear();
+    }
+}
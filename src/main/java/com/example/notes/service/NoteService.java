@@ -1,84 +1,202 @@
 package com.example.notes.service;
 
+import com.example.notes.dto.CursorPage;
+import com.example.notes.dto.NoteExport;
+import com.example.notes.dto.NoteFacets;
+import com.example.notes.dto.NoteSummary;
 import com.example.notes.entity.Note;
-import com.example.notes.entity.User;
 import com.example.notes.exception.NoteNotFoundException;
+import com.example.notes.exception.PreconditionFailedException;
+import com.example.notes.event.NoteChangedEvent;
+import com.example.notes.event.NoteSnapshot;
 import com.example.notes.exception.UnauthorizedException;
 import com.example.notes.repository.NoteRepository;
 import com.example.notes.repository.UserRepository;
+import com.example.notes.search.NoteFacetIndex;
+import com.example.notes.search.NoteSearchIndex;
+import com.example.notes.util.NoteCursor;
+import com.example.notes.util.NoteETags;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class NoteService {
 
+    // 导出时每批处理的笔记数（每批一次标签查询，处理完即从持久化上下文中移除）
+    private static final int EXPORT_CHUNK_SIZE = 200;
+
+    // 批量删除时每条 IN 语句最多包含的ID数
+    private static final int DELETE_CHUNK_SIZE = 500;
+
     private final NoteRepository noteRepository;
     private final UserRepository userRepository;
-
-    public NoteService(NoteRepository noteRepository, UserRepository userRepository) {
+    private final ActiveUserCache activeUserCache;
+    private final NoteSearchIndex noteSearchIndex;
+    private final NoteFacetIndex noteFacetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final int previewLength;
+
+    public NoteService(NoteRepository noteRepository, UserRepository userRepository,
+                       ActiveUserCache activeUserCache, NoteSearchIndex noteSearchIndex,
+                       NoteFacetIndex noteFacetIndex, ApplicationEventPublisher eventPublisher,
+                       EntityManager entityManager, ObjectMapper objectMapper,
+                       @Value("${app.notes.summary.preview-length:200}") int previewLength) {
         this.noteRepository = noteRepository;
         this.userRepository = userRepository;
+        this.activeUserCache = activeUserCache;
+        this.noteSearchIndex = noteSearchIndex;
+        this.noteFacetIndex = noteFacetIndex;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.previewLength = Math.max(0, previewLength);
     }
 
     // 获取用户的所有笔记（分页）
-    public Page<Note> getUserNotes(Long userId, Pageable pageable) {
+    public Page<NoteSummary> getUserNotes(Long userId, Pageable pageable) {
         validateUser(userId);
-        return noteRepository.findByUser_IdOrderByUpdatedAtDesc(userId, pageable);
+        return withTags(noteRepository.findSummariesByUserId(userId, previewLength, pageable));
     }
 
     // 获取用户的所有标签
     public List<String> getUserTags(Long userId) {
         validateUser(userId);
-        return noteRepository.findAllTagsByUserId(userId);
+        return noteFacetIndex.getTags(userId);
     }
 
     // 获取用户的所有科目
     public List<String> getUserSubjects(Long userId) {
         validateUser(userId);
-        return noteRepository.findAllSubjectsByUserId(userId);
+        return noteFacetIndex.getSubjects(userId);
     }
 
     // 获取用户的所有分类
     public List<String> getUserCategories(Long userId) {
         validateUser(userId);
-        return noteRepository.findAllCategoriesByUserId(userId);
+        return noteFacetIndex.getCategories(userId);
+    }
+
+    // 获取用户的科目、分类、标签及各自的笔记数
+    public NoteFacets getUserFacets(Long userId) {
+        validateUser(userId);
+        return noteFacetIndex.getFacets(userId);
     }
 
     // 按科目获取用户笔记
-    public Page<Note> getUserNotesBySubject(Long userId, String subject, Pageable pageable) {
+    public Page<NoteSummary> getUserNotesBySubject(Long userId, String subject, Pageable pageable) {
         validateUser(userId);
-        return noteRepository.findByUser_IdAndSubjectOrderByUpdatedAtDesc(userId, subject, pageable);
+        return withTags(noteRepository.findSummariesByUserIdAndSubject(userId, subject, previewLength, pageable));
     }
 
     // 按分类获取用户笔记
-    public Page<Note> getUserNotesByCategory(Long userId, String category, Pageable pageable) {
+    public Page<NoteSummary> getUserNotesByCategory(Long userId, String category, Pageable pageable) {
         validateUser(userId);
-        return noteRepository.findByUser_IdAndCategoryOrderByUpdatedAtDesc(userId, category, pageable);
+        return withTags(noteRepository.findSummariesByUserIdAndCategory(userId, category, previewLength, pageable));
     }
 
     // 获取用户收藏笔记
-    public Page<Note> getUserFavoriteNotes(Long userId, Pageable pageable) {
+    public Page<NoteSummary> getUserFavoriteNotes(Long userId, Pageable pageable) {
         validateUser(userId);
-        return noteRepository.findByUser_IdAndIsFavoriteTrueOrderByUpdatedAtDesc(userId, pageable);
+        return withTags(noteRepository.findFavoriteSummariesByUserId(userId, previewLength, pageable));
     }
 
     // 按标签查询用户笔记
-    public Page<Note> getUserNotesByTag(Long userId, String tag, Pageable pageable) {
+    public Page<NoteSummary> getUserNotesByTag(Long userId, String tag, Pageable pageable) {
         validateUser(userId);
-        return noteRepository.findByUser_IdAndTag(userId, tag, pageable);
+        return withTags(noteRepository.findSummariesByUserIdAndTag(userId, tag, previewLength, pageable));
     }
 
     // 搜索用户笔记
-    public Page<Note> searchUserNotes(Long userId, String keyword, String subject,
-                                      String category, Boolean isFavorite, Pageable pageable) {
+    public Page<NoteSummary> searchUserNotes(Long userId, String keyword, String subject,
+                                             String category, Boolean isFavorite, Pageable pageable) {
+        validateUser(userId);
+
+        // 没有关键词时只做条件过滤
+        if (keyword == null || keyword.isBlank()) {
+            return withTags(noteRepository.filterUserNotes(userId, subject, category, isFavorite,
+                    previewLength, pageable));
+        }
+
+        // 关键词搜索：倒排索引按 BM25 排序，只回表取当前页
+        List<Long> rankedIds = noteSearchIndex.search(userId, keyword, subject, category, isFavorite);
+        int from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), rankedIds.size());
+        List<Long> pageIds = rankedIds.subList(from, to);
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, rankedIds.size());
+        }
+
+        Map<Long, NoteSummary> notesById = noteRepository.findSummariesByUserIdAndIdIn(userId, pageIds, previewLength)
+                .stream()
+                .collect(Collectors.toMap(NoteSummary::getId, Function.identity()));
+        List<NoteSummary> notes = pageIds.stream()
+                .map(notesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(withTags(notes), pageable, rankedIds.size());
+    }
+
+    // 游标分页：获取用户的所有笔记
+    public CursorPage<NoteSummary> getUserNotesAfter(Long userId, String cursor, int size) {
+        validateUser(userId);
+        return seek(cursor, size, (c, limit) ->
+                noteRepository.findUserNotesAfter(userId, c.getUpdatedAt(), c.getId(), previewLength, limit));
+    }
+
+    // 游标分页：按科目获取用户笔记
+    public CursorPage<NoteSummary> getUserNotesBySubjectAfter(Long userId, String subject, String cursor, int size) {
+        validateUser(userId);
+        return seek(cursor, size, (c, limit) ->
+                noteRepository.findUserNotesBySubjectAfter(userId, subject, c.getUpdatedAt(), c.getId(), previewLength, limit));
+    }
+
+    // 游标分页：按分类获取用户笔记
+    public CursorPage<NoteSummary> getUserNotesByCategoryAfter(Long userId, String category, String cursor, int size) {
+        validateUser(userId);
+        return seek(cursor, size, (c, limit) ->
+                noteRepository.findUserNotesByCategoryAfter(userId, category, c.getUpdatedAt(), c.getId(), previewLength, limit));
+    }
+
+    // 游标分页：按标签获取用户笔记
+    public CursorPage<NoteSummary> getUserNotesByTagAfter(Long userId, String tag, String cursor, int size) {
         validateUser(userId);
-        return noteRepository.searchUserNotes(userId, keyword, subject, category, isFavorite, pageable);
+        return seek(cursor, size, (c, limit) ->
+                noteRepository.findUserNotesByTagAfter(userId, tag, c.getUpdatedAt(), c.getId(), previewLength, limit));
+    }
+
+    // 游标分页：获取用户收藏笔记
+    public CursorPage<NoteSummary> getUserFavoriteNotesAfter(Long userId, String cursor, int size) {
+        validateUser(userId);
+        return seek(cursor, size, (c, limit) ->
+                noteRepository.findUserFavoriteNotesAfter(userId, c.getUpdatedAt(), c.getId(), previewLength, limit));
     }
 
     // 根据ID获取用户的笔记
@@ -87,9 +205,23 @@ public class NoteService {
         return noteRepository.findByIdAndUser_Id(noteId, userId);
     }
 
+    // 获取笔记的 ETag（只查更新时间，不加载正文）；笔记不存在或不属于该用户时为空
+    public Optional<String> getNoteETag(Long userId, Long noteId) {
+        validateUser(userId);
+        return noteRepository.findUpdatedAtByIdAndUserId(noteId, userId)
+                .map(updatedAt -> NoteETags.forNote(noteId, updatedAt));
+    }
+
+    // 获取用户笔记集合的 ETag（笔记数 + 最大更新时间），任何增删改都会使其变化
+    public String getUserNotesETag(Long userId) {
+        validateUser(userId);
+        Object[] row = noteRepository.findListVersionByUserId(userId).get(0);
+        return NoteETags.forCollection(((Number) row[0]).longValue(), (LocalDateTime) row[1]);
+    }
+
     // 创建新笔记
     public Note createNote(Long userId, Note note) {
-        User user = validateUser(userId);
+        validateUser(userId);
 
         // 设置默认值
         if (note.getIsFavorite() == null) {
@@ -102,16 +234,30 @@ public class NoteService {
             note.setTags(new java.util.HashSet<>());
         }
 
-        // 关联用户
-        note.setUser(user);
+        // 关联用户（只需外键，用引用代替加载整行）
+        note.setUser(userRepository.getReferenceById(userId));
 
-        return noteRepository.save(note);
+        Note savedNote = noteRepository.save(note);
+        eventPublisher.publishEvent(NoteChangedEvent.created(NoteSnapshot.of(savedNote)));
+        return savedNote;
     }
 
     // 更新笔记
     public Note updateNote(Long userId, Long noteId, Note noteDetails) {
-        Note existingNote = noteRepository.findByIdAndUser_Id(noteId, userId)
+        return updateNote(userId, noteId, noteDetails, null);
+    }
+
+    // 更新笔记；ifMatch 不为空时，只有笔记当前的 ETag 与之匹配才更新（防止覆盖他人的修改）
+    public Note updateNote(Long userId, Long noteId, Note noteDetails, String ifMatch) {
+        Optional<Note> found = ifMatch != null
+                ? noteRepository.findForUpdateByIdAndUserId(noteId, userId)
+                : noteRepository.findByIdAndUser_Id(noteId, userId);
+        Note existingNote = found
                 .orElseThrow(() -> new NoteNotFoundException("Note not found or access denied"));
+        if (ifMatch != null && !NoteETags.matches(ifMatch, NoteETags.forNote(existingNote))) {
+            throw new PreconditionFailedException("Note has been modified since it was read");
+        }
+        NoteSnapshot before = NoteSnapshot.of(existingNote);
 
         // 更新字段
         existingNote.setSubject(noteDetails.getSubject());
@@ -126,7 +272,9 @@ public class NoteService {
             existingNote.setIsPublic(noteDetails.getIsPublic());
         }
 
-        return noteRepository.save(existingNote);
+        Note savedNote = noteRepository.saveAndFlush(existingNote);
+        eventPublisher.publishEvent(NoteChangedEvent.updated(before, NoteSnapshot.of(savedNote)));
+        return savedNote;
     }
 
     // 切换收藏状态
@@ -134,8 +282,12 @@ public class NoteService {
         Note note = noteRepository.findByIdAndUser_Id(noteId, userId)
                 .orElseThrow(() -> new NoteNotFoundException("Note not found or access denied"));
 
+        NoteSnapshot before = NoteSnapshot.of(note);
+
         note.setIsFavorite(!note.getIsFavorite());
-        return noteRepository.save(note);
+        Note savedNote = noteRepository.saveAndFlush(note);
+        eventPublisher.publishEvent(NoteChangedEvent.updated(before, NoteSnapshot.of(savedNote)));
+        return savedNote;
     }
 
     // 切换公开状态
@@ -143,8 +295,12 @@ public class NoteService {
         Note note = noteRepository.findByIdAndUser_Id(noteId, userId)
                 .orElseThrow(() -> new NoteNotFoundException("Note not found or access denied"));
 
+        NoteSnapshot before = NoteSnapshot.of(note);
+
         note.setIsPublic(!note.getIsPublic());
-        return noteRepository.save(note);
+        Note savedNote = noteRepository.saveAndFlush(note);
+        eventPublisher.publishEvent(NoteChangedEvent.updated(before, NoteSnapshot.of(savedNote)));
+        return savedNote;
     }
 
     // 删除笔记
@@ -152,60 +308,175 @@ public class NoteService {
         Note note = noteRepository.findByIdAndUser_Id(noteId, userId)
                 .orElseThrow(() -> new NoteNotFoundException("Note not found or access denied"));
 
+        NoteSnapshot before = NoteSnapshot.of(note);
         noteRepository.delete(note);
+        eventPublisher.publishEvent(NoteChangedEvent.deleted(before));
     }
 
-    // 批量删除笔记
-    public void deleteNotes(Long userId, List<Long> noteIds) {
+    // 批量删除笔记：每块ID只执行固定几条集合语句（筛选归属、查标签、删标签、删笔记），
+    // 不属于该用户或不存在的ID会被忽略；返回实际删除的笔记ID
+    public List<Long> deleteNotes(Long userId, List<Long> noteIds) {
         validateUser(userId);
 
-        for (Long noteId : noteIds) {
-            Optional<Note> note = noteRepository.findByIdAndUser_Id(noteId, userId);
-            if (note.isPresent()) {
-                noteRepository.delete(note.get());
+        List<Long> distinctIds = noteIds.stream().filter(Objects::nonNull).distinct().toList();
+        List<Long> deletedIds = new ArrayList<>();
+
+        for (int from = 0; from < distinctIds.size(); from += DELETE_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, distinctIds.size()));
+
+            List<Object[]> owned = noteRepository.findDeletionInfoByUserIdAndIdIn(userId, chunk);
+            if (owned.isEmpty()) {
+                continue;
+            }
+            List<Long> ownedIds = owned.stream().map(row -> (Long) row[0]).toList();
+            Map<Long, Set<String>> tagsByNoteId = findTagsByNoteIds(ownedIds);
+
+            noteRepository.deleteTagsByNoteIds(ownedIds);
+            noteRepository.deleteByUserIdAndIdIn(userId, ownedIds);
+            deletedIds.addAll(ownedIds);
+
+            // 批量删除不加载正文，快照中只包含标题/内容以外的字段
+            for (Object[] row : owned) {
+                Long id = (Long) row[0];
+                NoteSnapshot before = new NoteSnapshot(id, userId, (String) row[1], null, null, (String) row[2],
+                        tagsByNoteId.getOrDefault(id, Set.of()), (Boolean) row[3], (Boolean) row[4],
+                        (LocalDateTime) row[5]);
+                eventPublisher.publishEvent(NoteChangedEvent.deleted(before));
             }
         }
+        return deletedIds;
     }
 
     // 获取用户笔记统计
     public NoteStats getUserNoteStats(Long userId) {
         validateUser(userId);
 
-        Long totalNotes = noteRepository.countByUserId(userId);
-        Long favoriteNotes = noteRepository.countFavoritesByUserId(userId);
-        List<String> subjects = noteRepository.findAllSubjectsByUserId(userId);
-        List<String> categories = noteRepository.findAllCategoriesByUserId(userId);
-
-        return new NoteStats(totalNotes, favoriteNotes, subjects.size(), categories.size());
+        // 由分面索引增量维护的计数，与笔记数量无关
+        NoteFacetIndex.Totals totals = noteFacetIndex.getTotals(userId);
+        return new NoteStats(totals.getTotalNotes(), totals.getFavoriteNotes(),
+                totals.getTotalSubjects(), totals.getTotalCategories());
     }
 
     // 获取最近更新的笔记
-    public List<Note> getRecentlyUpdatedNotes(Long userId) {
+    public List<NoteSummary> getRecentlyUpdatedNotes(Long userId) {
         validateUser(userId);
-        return noteRepository.findTop10ByUser_IdOrderByUpdatedAtDesc(userId);
+        return withTags(noteRepository.findRecentlyUpdatedSummaries(userId, previewLength, PageRequest.of(0, 10)));
     }
 
     // 获取最近创建的笔记
-    public List<Note> getRecentlyCreatedNotes(Long userId) {
+    public List<NoteSummary> getRecentlyCreatedNotes(Long userId) {
+        validateUser(userId);
+        return withTags(noteRepository.findRecentlyCreatedSummaries(userId, previewLength, PageRequest.of(0, 10)));
+    }
+
+    // 导出用户全部笔记为 NDJSON（每行一条）。通过数据库游标流式读取，
+    // 每批写出后立即 detach，内存占用与笔记总数无关；返回导出的笔记数
+    @Transactional(readOnly = true)
+    public long exportUserNotes(Long userId, OutputStream out) throws IOException {
         validateUser(userId);
-        return noteRepository.findTop10ByUser_IdOrderByCreatedAtDesc(userId);
+
+        long exported = 0;
+        List<Note> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+        try (Stream<Note> notes = noteRepository.streamByUserId(userId)) {
+            Iterator<Note> iterator = notes.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == EXPORT_CHUNK_SIZE) {
+                    exported += writeExportChunk(chunk, out);
+                }
+            }
+        }
+        exported += writeExportChunk(chunk, out);
+        out.flush();
+        return exported;
     }
 
     // 获取公开笔记（不需要用户验证）
-    public Page<Note> getPublicNotes(Pageable pageable) {
-        return noteRepository.findPublicNotes(pageable);
+    public Page<NoteSummary> getPublicNotes(Pageable pageable) {
+        return withTags(noteRepository.findPublicNotes(previewLength, pageable));
+    }
+
+    // 游标分页：获取公开笔记（不需要用户验证）
+    public CursorPage<NoteSummary> getPublicNotesAfter(String cursor, int size) {
+        return seek(cursor, size, (c, limit) ->
+                noteRepository.findPublicNotesAfter(c.getUpdatedAt(), c.getId(), previewLength, limit));
     }
 
     // 获取用户的公开笔记
-    public Page<Note> getUserPublicNotes(Long userId, Pageable pageable) {
+    public Page<NoteSummary> getUserPublicNotes(Long userId, Pageable pageable) {
         validateUser(userId);
-        return noteRepository.findPublicNotesByUser_Id(userId, pageable);
+        return withTags(noteRepository.findPublicNotesByUser_Id(userId, previewLength, pageable));
+    }
+
+    // 辅助方法：写出一批导出数据并释放这批实体
+    private int writeExportChunk(List<Note> chunk, OutputStream out) throws IOException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Set<String>> tagsByNoteId = findTagsByNoteIds(chunk.stream().map(Note::getId).toList());
+
+        for (Note note : chunk) {
+            NoteExport line = new NoteExport(note, tagsByNoteId.getOrDefault(note.getId(), Set.of()));
+            out.write(objectMapper.writeValueAsBytes(line));
+            out.write('\n');
+            entityManager.detach(note);
+        }
+        out.flush();
+
+        int written = chunk.size();
+        chunk.clear();
+        return written;
+    }
+
+    // 辅助方法：一次查询取回多篇笔记的标签
+    private Map<Long, Set<String>> findTagsByNoteIds(List<Long> noteIds) {
+        Map<Long, Set<String>> tagsByNoteId = new HashMap<>();
+        for (Object[] row : noteRepository.findTagsByNoteIds(noteIds)) {
+            tagsByNoteId.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+        }
+        return tagsByNoteId;
+    }
+
+    // 辅助方法：一次查询为一批摘要填充标签
+    private List<NoteSummary> withTags(List<NoteSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+        Map<Long, Set<String>> tagsByNoteId = findTagsByNoteIds(summaries.stream().map(NoteSummary::getId).toList());
+        for (NoteSummary summary : summaries) {
+            summary.setTags(tagsByNoteId.getOrDefault(summary.getId(), new HashSet<>()));
+        }
+        return summaries;
+    }
+
+    private Page<NoteSummary> withTags(Page<NoteSummary> page) {
+        withTags(page.getContent());
+        return page;
     }
 
-    // 辅助方法：验证用户存在性
-    private User validateUser(Long userId) {
-        return userRepository.findByIdAndIsActiveTrue(userId)
-                .orElseThrow(() -> new UnauthorizedException("User not found or inactive"));
+    // 辅助方法：按游标取一页，多取一条用于判断是否还有下一页
+    private CursorPage<NoteSummary> seek(String cursor, int size,
+                                         BiFunction<NoteCursor, Pageable, List<NoteSummary>> query) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        NoteCursor position = NoteCursor.decode(cursor);
+        List<NoteSummary> rows = query.apply(position, PageRequest.of(0, size + 1));
+        if (rows.size() <= size) {
+            return new CursorPage<>(withTags(rows), null, size);
+        }
+
+        List<NoteSummary> page = withTags(new ArrayList<>(rows.subList(0, size)));
+        NoteSummary last = page.get(size - 1);
+        return new CursorPage<>(page, new NoteCursor(last.getUpdatedAt(), last.getId()).encode(), size);
+    }
+
+    // 辅助方法：验证用户存在且已激活（走激活状态缓存）
+    private void validateUser(Long userId) {
+        if (!activeUserCache.isActive(userId)) {
+            throw new UnauthorizedException("User not found or inactive");
+        }
     }
 
     // 内部类：笔记统计
@@ -0,0 +1,114 @@
+package com.example.notes.service;
+
+import com.example.notes.dto.NoteChanges;
+import com.example.notes.entity.Note;
+import com.example.notes.entity.NoteChange;
+import com.example.notes.exception.SyncTokenExpiredException;
+import com.example.notes.exception.UnauthorizedException;
+import com.example.notes.repository.NoteChangeRepository;
+import com.example.notes.repository.NoteRepository;
+import com.example.notes.util.SyncToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// 增量同步：根据客户端持有的令牌返回之后新建/修改的笔记和被删除笔记的ID，流量只与变更量有关
+@Service
+@Transactional(readOnly = true)
+public class NoteSyncService {
+
+    private final NoteChangeRepository noteChangeRepository;
+    private final NoteRepository noteRepository;
+    private final ActiveUserCache activeUserCache;
+    private final Duration retention;
+    private final Duration visibilityLag;
+
+    public NoteSyncService(NoteChangeRepository noteChangeRepository,
+                           NoteRepository noteRepository,
+                           ActiveUserCache activeUserCache,
+                           @Value("${app.notes.sync.retention:30d}") Duration retention,
+                           @Value("${app.notes.sync.visibility-lag:5s}") Duration visibilityLag) {
+        this.noteChangeRepository = noteChangeRepository;
+        this.noteRepository = noteRepository;
+        this.activeUserCache = activeUserCache;
+        this.retention = retention;
+        this.visibilityLag = visibilityLag;
+    }
+
+    // 获取令牌之后的变更。token 为空时只返回当前令牌：客户端应先取令牌，再全量拉取一次，之后用令牌增量同步
+    public NoteChanges getChanges(Long userId, String token, int limit) {
+        if (!activeUserCache.isActive(userId)) {
+            throw new UnauthorizedException("User not found or inactive");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must not be less than one");
+        }
+
+        // 只读取 visibilityLag 之前写入的记录：自增序号按插入顺序分配，但事务提交有先后，
+        // 留出时间窗口，避免较小序号的记录在令牌推进之后才提交而被跳过
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime visibleBefore = now.minus(visibilityLag);
+
+        if (token == null || token.isBlank()) {
+            Long latest = noteChangeRepository.findLatestId(visibleBefore);
+            return new NoteChanges(List.of(), List.of(),
+                    new SyncToken(latest != null ? latest : 0, visibleBefore).encode(), false);
+        }
+
+        SyncToken since = SyncToken.decode(token);
+        if (since.getHorizon().isBefore(now.minus(retention).plus(visibilityLag))) {
+            throw new SyncTokenExpiredException("Sync token has expired, a full resync is required");
+        }
+
+        List<NoteChange> rows = noteChangeRepository.findChangesAfter(userId, since.getSeq(), visibleBefore,
+                PageRequest.of(0, limit + 1));
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+        if (rows.isEmpty()) {
+            return new NoteChanges(List.of(), List.of(), new SyncToken(since.getSeq(), visibleBefore).encode(), false);
+        }
+
+        // 同一篇笔记只看最后一条变更
+        Map<Long, NoteChange.Type> latestByNote = new LinkedHashMap<>();
+        for (NoteChange row : rows) {
+            latestByNote.remove(row.getNoteId());
+            latestByNote.put(row.getNoteId(), row.getType());
+        }
+
+        List<Long> upsertIds = latestByNote.entrySet().stream()
+                .filter(e -> e.getValue() == NoteChange.Type.UPSERT)
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<Long, Note> notesById = upsertIds.isEmpty() ? Map.of()
+                : noteRepository.findAllWithTagsByUserIdAndIdIn(userId, upsertIds).stream()
+                        .collect(Collectors.toMap(Note::getId, Function.identity()));
+
+        List<Note> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        latestByNote.forEach((noteId, type) -> {
+            Note note = notesById.get(noteId);
+            if (note != null) {
+                changed.add(note);
+            } else {
+                // 删除记录，或者之后已被删除（删除记录会在后续页中出现）
+                deleted.add(noteId);
+            }
+        });
+
+        NoteChange last = rows.get(rows.size() - 1);
+        LocalDateTime horizon = hasMore ? last.getChangedAt() : visibleBefore;
+        return new NoteChanges(changed, deleted, new SyncToken(last.getId(), horizon).encode(), hasMore);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.notes.service;
+
+import com.example.notes.event.NoteChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Objects;
+
+// 公开笔记流前 K 页的共享缓存，值为序列化好的 JSON 字节。
+// 到期或公开笔记变更时在后台刷新，刷新完成前继续返回旧内容，避免并发请求同时打到数据库
+@Component
+public class PublicFeedCache {
+
+    private final NoteService noteService;
+    private final ObjectMapper objectMapper;
+    private final int cachedPages;
+    private final LoadingCache<PageKey, byte[]> pages;
+
+    public PublicFeedCache(NoteService noteService,
+                           ObjectMapper objectMapper,
+                           @Value("${app.notes.public-feed.cached-pages:5}") int cachedPages,
+                           @Value("${app.notes.public-feed.refresh-after:30s}") Duration refreshAfter,
+                           @Value("${app.notes.public-feed.expire-after:10m}") Duration expireAfter) {
+        this.noteService = noteService;
+        this.objectMapper = objectMapper;
+        this.cachedPages = cachedPages;
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .build(this::load);
+    }
+
+    // 该页是否由缓存提供
+    public boolean isCached(int page) {
+        return page >= 0 && page < cachedPages;
+    }
+
+    // 获取一页公开笔记的 JSON
+    public byte[] getPage(int page, int size) {
+        return pages.get(new PageKey(page, size));
+    }
+
+    // 事务提交后，若变更涉及公开笔记（变更前或变更后为公开），在后台刷新所有已缓存的页
+    @TransactionalEventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        boolean wasPublic = event.getBefore() != null && event.getBefore().isPublic();
+        boolean isPublic = event.getAfter() != null && event.getAfter().isPublic();
+        if (wasPublic || isPublic) {
+            pages.asMap().keySet().forEach(pages::refresh);
+        }
+    }
+
+    private byte[] load(PageKey key) {
+        try {
+            return objectMapper.writeValueAsBytes(noteService.getPublicNotes(PageRequest.of(key.page, key.size)));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class PageKey {
+        final int page;
+        final int size;
+
+        PageKey(int page, int size) {
+            this.page = page;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PageKey)) return false;
+            PageKey other = (PageKey) o;
+            return page == other.page && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(page, size);
+        }
+    }
+}
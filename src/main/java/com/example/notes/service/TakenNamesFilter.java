@@ -0,0 +1,141 @@
+package com.example.notes.service;
+
+import com.example.notes.repository.UserRepository;
+import com.example.notes.util.BloomFilter;
+import com.example.notes.util.Collation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+// 已占用用户名/邮箱的布隆过滤器：过滤器中不存在时可以确定可用，不必查询数据库；
+// 可能存在时再用精确查询确认。只用于可用性检查接口，注册本身始终精确查询。
+// 启动后流式读取 users 表构建，注册和修改用户名/邮箱时加入新值，并定期重建
+// （旧值会残留到重建为止，只会造成多一次精确查询）。构建完成前一律回退到数据库查询
+@Component
+public class TakenNamesFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TakenNamesFilter.class);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readTransaction;
+    private final double fpp;
+    private final long minCapacity;
+
+    private volatile Filters current;
+    // 重建期间的新增同时写入正在构建的过滤器，避免重建完成后丢失
+    private volatile Filters building;
+
+    public TakenNamesFilter(UserRepository userRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.users.name-filter.fpp:0.01}") double fpp,
+                            @Value("${app.users.name-filter.min-capacity:100000}") long minCapacity) {
+        this.userRepository = userRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.fpp = fpp;
+        this.minCapacity = minCapacity;
+    }
+
+    // 用户名可能已被占用（false 表示一定可用）
+    public boolean mightContainUsername(String username) {
+        Filters filters = current;
+        return filters == null || filters.usernames.mightContain(normalize(username));
+    }
+
+    // 邮箱可能已被占用（false 表示一定可用）
+    public boolean mightContainEmail(String email) {
+        Filters filters = current;
+        return filters == null || filters.emails.mightContain(normalize(email));
+    }
+
+    // 加入新占用的用户名和邮箱（任一可为 null）。在事务中调用时等提交后再加入：
+    // 这样重建时要么读到这一行，要么这次加入落在正在构建的过滤器里
+    public void add(String username, String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(username, email);
+                }
+            });
+        } else {
+            put(username, email);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    // 定期重建：清除改名后残留的旧值，并按当前用户数重新确定容量
+    @Scheduled(fixedDelayString = "${app.users.name-filter.rebuild-interval:PT6H}",
+            initialDelayString = "${app.users.name-filter.rebuild-interval:PT6H}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        // 预留一倍余量给之后的注册
+        long capacity = Math.max(minCapacity, userRepository.count() * 2);
+        Filters next = new Filters(BloomFilter.create(capacity, fpp), BloomFilter.create(capacity, fpp));
+        building = next;
+        try {
+            long loaded = readTransaction.execute(status -> {
+                long[] count = {0};
+                try (Stream<Object[]> rows = userRepository.streamUsernamesAndEmails()) {
+                    rows.forEach(row -> {
+                        next.usernames.put(normalize((String) row[0]));
+                        next.emails.put(normalize((String) row[1]));
+                        count[0]++;
+                    });
+                }
+                return count[0];
+            });
+            current = next;
+            logger.info("Username/email filter built with {} users in {} ms ({} bytes)", loaded,
+                    System.currentTimeMillis() - start, next.usernames.sizeInBytes() + next.emails.sizeInBytes());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to build username/email filter: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    private void put(String username, String email) {
+        for (Filters filters : new Filters[]{current, building}) {
+            if (filters == null) {
+                continue;
+            }
+            if (username != null) {
+                filters.usernames.put(normalize(username));
+            }
+            if (email != null) {
+                filters.emails.put(normalize(email));
+            }
+        }
+    }
+
+    // 尽量贴近 MySQL 默认排序规则：不区分大小写，也不区分重音（café 与 cafe 视为相同）。
+    // 排序规则还有其他等价关系，因此注册时仍以精确查询为准，这里只影响可用性提示
+    private static String normalize(String value) {
+        return value == null ? "" : Collation.key(value.trim());
+    }
+
+    private static final class Filters {
+        private final BloomFilter usernames;
+        private final BloomFilter emails;
+
+        Filters(BloomFilter usernames, BloomFilter emails) {
+            this.usernames = usernames;
+            this.emails = emails;
+        }
+    }
+}
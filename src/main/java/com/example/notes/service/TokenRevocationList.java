@@ -0,0 +1,156 @@
+package com.example.notes.service;
+
+import com.example.notes.config.JwtClaims;
+import com.example.notes.entity.RevokedToken;
+import com.example.notes.repository.RevokedTokenRepository;
+import com.example.notes.repository.UserRepository;
+import com.example.notes.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// JWT 吊销集：每个请求都要检查，所以完全在内存中完成——先查布隆过滤器，绝大多数未吊销的令牌到此即可放行；
+// 可能命中时再查精确集合。吊销记录同时写入 revoked_tokens 表，启动时和定期从表中重建
+// （重建同时清掉已过期的记录，并能看到其他实例吊销的令牌）。
+// 另外按用户记录令牌失效时间点（users.tokens_valid_after，修改密码时设置），早于该时间签发的令牌一律视为吊销
+@Component
+public class TokenRevocationList {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final UserRepository userRepository;
+    // 令牌有效期：更早的失效时间点已不会影响任何未过期的令牌，重建时不必加载
+    private final Duration tokenLifetime;
+    private final double fpp;
+    private final int minCapacity;
+
+    private volatile Revocations current;
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               UserRepository userRepository,
+                               @Value("${jwt.expiration}") long tokenLifetimeMs,
+                               @Value("${app.auth.revocation.fpp:0.001}") double fpp,
+                               @Value("${app.auth.revocation.min-capacity:10000}") int minCapacity) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.userRepository = userRepository;
+        this.tokenLifetime = Duration.ofMillis(tokenLifetimeMs);
+        this.fpp = fpp;
+        this.minCapacity = minCapacity;
+        this.current = new Revocations(BloomFilter.create(minCapacity, fpp));
+    }
+
+    // 令牌是否已被吊销：签发时间早于该用户的失效时间点，或 jti 在吊销集中（没有 jti 的旧令牌只受前者约束）
+    public boolean isRevoked(JwtClaims claims) {
+        Revocations revocations = current;
+        if (claims.getUserId() != null) {
+            Instant validAfter = revocations.validAfter.get(claims.getUserId());
+            if (validAfter != null && (claims.getIssuedAt() == null || claims.getIssuedAt().isBefore(validAfter))) {
+                return true;
+            }
+        }
+        String tokenId = claims.getTokenId();
+        if (tokenId == null) {
+            return false;
+        }
+        return revocations.filter.mightContain(tokenId) && revocations.exact.containsKey(tokenId);
+    }
+
+    // 吊销令牌，保留到令牌过期为止
+    public void revoke(JwtClaims claims) {
+        if (claims.getTokenId() == null || claims.getExpiration() == null || claims.isExpired()) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(claims.getTokenId(), claims.getUserId(),
+                LocalDateTime.ofInstant(claims.getExpiration(), ZoneId.systemDefault())));
+        synchronized (this) {
+            current.add(claims.getTokenId(), claims.getExpiration());
+        }
+    }
+
+    // 吊销该用户在 validAfter 之前签发的所有令牌（失效时间点由调用方已写入 users 表）
+    public void revokeIssuedBefore(Long userId, Instant validAfter) {
+        synchronized (this) {
+            current.addWatermark(userId, validAfter);
+        }
+    }
+
+    // 在开始接收请求之前加载，避免重启后已吊销的令牌短暂可用
+    @PostConstruct
+    public void load() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.revocation.rebuild-interval:PT10M}",
+            initialDelayString = "${app.auth.revocation.rebuild-interval:PT10M}")
+    public void rebuild() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int purged = revokedTokenRepository.deleteExpired(now);
+            List<Object[]> rows = revokedTokenRepository.findActive(now);
+            List<Object[]> watermarks = userRepository.findTokenWatermarks(now.minus(tokenLifetime));
+
+            Revocations next = new Revocations(BloomFilter.create(Math.max(minCapacity, rows.size() * 2L), fpp));
+            for (Object[] row : rows) {
+                next.add((String) row[0], ((LocalDateTime) row[1]).atZone(ZoneId.systemDefault()).toInstant());
+            }
+            for (Object[] row : watermarks) {
+                next.addWatermark((Long) row[0], ((LocalDateTime) row[1]).atZone(ZoneId.systemDefault()).toInstant());
+            }
+            synchronized (this) {
+                // 带上查询之后才提交的本地吊销
+                Instant nowInstant = Instant.now();
+                current.exact.forEach((tokenId, expiration) -> {
+                    if (expiration.isAfter(nowInstant) && !next.exact.containsKey(tokenId)) {
+                        next.add(tokenId, expiration);
+                    }
+                });
+                Instant oldestRelevant = nowInstant.minus(tokenLifetime);
+                current.validAfter.forEach((userId, validAfter) -> {
+                    if (validAfter.isAfter(oldestRelevant)) {
+                        next.addWatermark(userId, validAfter);
+                    }
+                });
+                current = next;
+            }
+            logger.info("Token revocation list rebuilt: {} active, {} expired purged, {} user watermarks",
+                    rows.size(), purged, next.validAfter.size());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to rebuild token revocation list: {}", e.getMessage());
+        }
+    }
+
+    private static final class Revocations {
+        private final BloomFilter filter;
+        // jti -> 令牌过期时间
+        private final Map<String, Instant> exact = new ConcurrentHashMap<>();
+        // userId -> 令牌失效时间点
+        private final Map<Long, Instant> validAfter = new ConcurrentHashMap<>();
+
+        Revocations(BloomFilter filter) {
+            this.filter = filter;
+        }
+
+        // 先写精确集合再写过滤器：过滤器命中时精确集合中一定已有
+        void add(String tokenId, Instant expiration) {
+            exact.put(tokenId, expiration);
+            filter.put(tokenId);
+        }
+
+        // 同一用户保留较晚的时间点
+        void addWatermark(Long userId, Instant at) {
+            validAfter.merge(userId, at, (a, b) -> a.isAfter(b) ? a : b);
+        }
+    }
+}
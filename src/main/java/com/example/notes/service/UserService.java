@@ -4,28 +4,54 @@ import com.example.notes.entity.User;
 import com.example.notes.exception.UserAlreadyExistsException;
 import com.example.notes.exception.UserNotFoundException;
 import com.example.notes.repository.UserRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Transactional
 public class UserService {
 
-    private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    private final UserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+    private final ActiveUserCache activeUserCache;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final TakenNamesFilter takenNamesFilter;
+    private final TokenRevocationList tokenRevocationList;
+    // 密码哈希在专用线程池中异步完成，之后的数据库写入用编程式事务
+    private final TransactionTemplate transactionTemplate;
+
+    public UserService(UserRepository userRepository, PasswordHasher passwordHasher,
+                       ActiveUserCache activeUserCache, LastLoginRecorder lastLoginRecorder,
+                       TakenNamesFilter takenNamesFilter, TokenRevocationList tokenRevocationList,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.activeUserCache = activeUserCache;
+        this.lastLoginRecorder = lastLoginRecorder;
+        this.takenNamesFilter = takenNamesFilter;
+        this.tokenRevocationList = tokenRevocationList;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    // 用户注册
-    public User registerUser(String username, String email, String password) {
+    // 用户注册：先做重复检查，再异步计算密码哈希并保存。
+    // 这里必须精确查库，不能信任过滤器的“一定不存在”：数据库排序规则不区分重音等差异（café / cafe），
+    // 过滤器按原文判断会漏报
+    public CompletableFuture<User> registerUser(String username, String email, String password) {
         // 检查用户名是否已存在
         if (userRepository.existsByUsername(username)) {
             throw new UserAlreadyExistsException("Username already exists");
@@ -36,31 +62,61 @@ public class UserService {
             throw new UserAlreadyExistsException("Email already exists");
         }
 
-        // 创建新用户
-        User user = new User();
-        user.setUsername(username);
-        user.setEmail(email);
-        user.setPassword(passwordEncoder.encode(password));
-        user.setDisplayName(username); // 默认显示名为用户名
-        user.setIsActive(true);
-
-        return userRepository.save(user);
+        return passwordHasher.encode(password).thenApply(hash -> {
+            try {
+                return transactionTemplate.execute(status -> {
+                    // 创建新用户
+                    User user = new User();
+                    user.setUsername(username);
+                    user.setEmail(email);
+                    user.setPassword(hash);
+                    user.setDisplayName(username); // 默认显示名为用户名
+                    user.setIsActive(true);
+
+                    User savedUser = userRepository.save(user);
+                    activeUserCache.invalidate(savedUser.getId());
+                    takenNamesFilter.add(username, email);
+                    return savedUser;
+                });
+            } catch (DataIntegrityViolationException e) {
+                // 哈希计算期间同名用户已被注册，由唯一约束兜底
+                throw new UserAlreadyExistsException("Username or email already exists");
+            }
+        });
     }
 
-    // 用户登录验证
-    public Optional<User> authenticateUser(String usernameOrEmail, String password) {
+    // 用户登录验证（异步）：密码校验在哈希线程池中执行；
+    // 校验通过且存储的哈希强度低于当前配置时，在后台按新强度重新计算并保存
+    public CompletableFuture<Optional<User>> authenticateUser(String usernameOrEmail, String password) {
         Optional<User> userOpt = userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail);
+        if (userOpt.isEmpty() || !userOpt.get().getIsActive()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
 
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            if (user.getIsActive() && passwordEncoder.matches(password, user.getPassword())) {
-                // 更新最后登录时间
-                updateLastLoginTime(user.getId());
-                return Optional.of(user);
+        User user = userOpt.get();
+        String storedHash = user.getPassword();
+        return passwordHasher.matches(password, storedHash).thenApply(matched -> {
+            if (!matched) {
+                return Optional.<User>empty();
             }
-        }
+            // 更新最后登录时间（缓冲后批量写回）
+            updateLastLoginTime(user.getId());
+            if (passwordHasher.upgradeEncoding(storedHash)) {
+                rehash(user.getId(), storedHash, password);
+            }
+            return Optional.of(user);
+        });
+    }
 
-        return Optional.empty();
+    // 重新计算密码哈希；失败（例如线程池繁忙）不影响本次登录，下次登录时再试
+    private void rehash(Long userId, String storedHash, String password) {
+        passwordHasher.encode(password)
+                .thenAccept(hash -> transactionTemplate.executeWithoutResult(
+                        status -> userRepository.updatePassword(userId, storedHash, hash)))
+                .exceptionally(ex -> {
+                    logger.warn("Failed to rehash password for user {}: {}", userId, ex.toString());
+                    return null;
+                });
     }
 
     // 根据ID获取用户
@@ -94,28 +150,63 @@ public class UserService {
         return userRepository.save(user);
     }
 
-    // 更改密码
-    public void changePassword(Long userId, String oldPassword, String newPassword) {
+    // 更改密码（异步）
+    public CompletableFuture<Void> changePassword(Long userId, String oldPassword, String newPassword) {
         User user = userRepository.findByIdAndIsActiveTrue(userId)
                 .orElseThrow(() -> new UserNotFoundException("User not found"));
+        String storedHash = user.getPassword();
 
         // 验证旧密码
-        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
-            throw new IllegalArgumentException("Invalid old password");
-        }
-
-        // 设置新密码
-        user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+        return passwordHasher.matches(oldPassword, storedHash)
+                .thenCompose(matched -> {
+                    if (!matched) {
+                        throw new IllegalArgumentException("Invalid old password");
+                    }
+                    // 设置新密码
+                    return passwordHasher.encode(newPassword);
+                })
+                .thenAccept(hash -> {
+                    Instant validAfter = tokenWatermark();
+                    transactionTemplate.executeWithoutResult(status -> {
+                        if (userRepository.updatePassword(userId, storedHash, hash) == 0) {
+                            throw new IllegalStateException("Password was changed concurrently, please try again");
+                        }
+                        userRepository.updateTokensValidAfter(userId, toLocalDateTime(validAfter));
+                    });
+                    tokenRevocationList.revokeIssuedBefore(userId, validAfter);
+                });
     }
 
-    // 重置密码（忘记密码功能）
-    public void resetPassword(String email, String newPassword) {
+    // 重置密码（忘记密码功能，异步）
+    public CompletableFuture<Void> resetPassword(String email, String newPassword) {
         User user = userRepository.findByEmailAndIsActiveTrue(email)
                 .orElseThrow(() -> new UserNotFoundException("User not found"));
+        String storedHash = user.getPassword();
+
+        return passwordHasher.encode(newPassword)
+                .thenAccept(hash -> {
+                    Instant validAfter = tokenWatermark();
+                    Boolean changed = transactionTemplate.execute(status -> {
+                        if (userRepository.updatePassword(user.getId(), storedHash, hash) == 0) {
+                            return false;
+                        }
+                        userRepository.updateTokensValidAfter(user.getId(), toLocalDateTime(validAfter));
+                        return true;
+                    });
+                    if (Boolean.TRUE.equals(changed)) {
+                        tokenRevocationList.revokeIssuedBefore(user.getId(), validAfter);
+                    }
+                });
+    }
 
-        user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+    // 密码变更后此前签发的令牌全部失效。JWT 的 iat 只精确到秒，失效时间点取当前秒的起点：
+    // 同一秒内稍早签发的令牌不受影响，发起修改的令牌由调用方按 jti 单独吊销
+    private static Instant tokenWatermark() {
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private static LocalDateTime toLocalDateTime(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
     }
 
     // 更新用户名
@@ -129,7 +220,9 @@ public class UserService {
         }
 
         user.setUsername(newUsername);
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        takenNamesFilter.add(newUsername, null);
+        return savedUser;
     }
 
     // 更新邮箱
@@ -143,17 +236,25 @@ public class UserService {
         }
 
         user.setEmail(newEmail);
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        takenNamesFilter.add(null, newEmail);
+        return savedUser;
     }
 
     // 停用用户账户
     public void deactivateUser(Long userId) {
-        userRepository.updateUserStatus(userId, false);
+        updateUserStatus(userId, false);
     }
 
     // 激活用户账户
     public void activateUser(Long userId) {
-        userRepository.updateUserStatus(userId, true);
+        updateUserStatus(userId, true);
+    }
+
+    // 更新用户状态，并失效激活状态缓存
+    public void updateUserStatus(Long userId, boolean isActive) {
+        userRepository.updateUserStatus(userId, isActive);
+        activeUserCache.invalidate(userId);
     }
 
     // 删除用户（软删除，实际是停用）
@@ -161,19 +262,27 @@ public class UserService {
         deactivateUser(userId);
     }
 
-    // 更新最后登录时间
+    // 更新最后登录时间：先记在内存中，由 LastLoginRecorder 定期批量写回
     public void updateLastLoginTime(Long userId) {
-        userRepository.updateLastLoginTime(userId, LocalDateTime.now());
+        lastLoginRecorder.record(userId, LocalDateTime.now());
+    }
+
+    // 最后登录时间：优先取尚未写回的较新值
+    public LocalDateTime getLastLoginAt(User user) {
+        LocalDateTime stored = user.getLastLoginAt();
+        return lastLoginRecorder.getPending(user.getId())
+                .filter(pending -> stored == null || pending.isAfter(stored))
+                .orElse(stored);
     }
 
-    // 验证用户名可用性
+    // 验证用户名可用性：过滤器中不存在时直接判定可用，可能存在时再查数据库确认
     public boolean isUsernameAvailable(String username) {
-        return !userRepository.existsByUsername(username);
+        return !takenNamesFilter.mightContainUsername(username) || !userRepository.existsByUsername(username);
     }
 
     // 验证邮箱可用性
     public boolean isEmailAvailable(String email) {
-        return !userRepository.existsByEmail(email);
+        return !takenNamesFilter.mightContainEmail(email) || !userRepository.existsByEmail(email);
     }
 
     // 获取活跃用户列表（管理功能）
@@ -0,0 +1,145 @@
+package com.example.notes.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 熔断器：统计最近 windowSize 次调用，失败（含慢调用）比例达到阈值时打开，打开期间直接拒绝；
+// 经过 openDuration 后进入半开状态，只放行一次试探调用，成功则关闭，失败则重新打开。
+// tryAcquire() 放行时返回许可（状态代数），之后必须用该许可恰好调用一次 onSuccess 或 onFailure；
+// 状态变化前发放的许可的结果会被忽略，例如打开前发出、在半开期间才超时的调用不会决定试探结果
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // tryAcquire() 拒绝时的返回值
+    public static final long REJECTED = -1;
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    // 环形窗口，true 表示失败
+    private final boolean[] window;
+    private int next;
+    private int calls;
+    private int failures;
+
+    private State state = State.CLOSED;
+    // 每次状态变化加一
+    private long generation;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long rejectedCalls;
+    private long openCount;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration slowCallThreshold, Duration openDuration) {
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("Invalid circuit breaker window");
+        }
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.openNanos = openDuration.toNanos();
+    }
+
+    // 放行时返回许可，拒绝时返回 REJECTED
+    public synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                rejectedCalls++;
+                return REJECTED;
+            }
+            state = State.HALF_OPEN;
+            generation++;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                rejectedCalls++;
+                return REJECTED;
+            }
+            trialInFlight = true;
+        }
+        return generation;
+    }
+
+    // 调用成功；耗时超过慢调用阈值的按失败计
+    public synchronized void onSuccess(long permit, long elapsedNanos) {
+        record(permit, elapsedNanos > slowCallNanos);
+    }
+
+    public synchronized void onFailure(long permit) {
+        record(permit, true);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("state", state);
+        result.put("windowCalls", calls);
+        result.put("windowFailures", failures);
+        result.put("failureRate", calls == 0 ? 0.0 : (double) failures / calls);
+        result.put("rejectedCalls", rejectedCalls);
+        result.put("openCount", openCount);
+        return result;
+    }
+
+    private void record(long permit, boolean failed) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            // 当前代数在半开状态下只发放过试探调用这一个许可
+            if (failed) {
+                open();
+            } else {
+                state = State.CLOSED;
+                generation++;
+                resetWindow();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+
+        if (calls == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+
+        if (calls >= minimumCalls && failures >= failureRateThreshold * calls) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        generation++;
+        openedAt = System.nanoTime();
+        openCount++;
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        next = 0;
+        calls = 0;
+        failures = 0;
+        trialInFlight = false;
+    }
+}
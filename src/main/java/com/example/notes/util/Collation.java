@@ -0,0 +1,20 @@
+package com.example.notes.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// 近似 MySQL 默认排序规则（utf8mb4 的 _ai_ci）的比较键：不区分大小写和重音（Math / math / máth 相同）。
+// 内存中需要与数据库判断“是否相同”保持一致时使用
+public final class Collation {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private Collation() {
+    }
+
+    public static String key(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
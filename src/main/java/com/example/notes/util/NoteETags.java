@@ -0,0 +1,49 @@
+package com.example.notes.util;
+
+import com.example.notes.entity.Note;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// 笔记的强 ETag：单篇为 (id, updatedAt)，列表为 (笔记数, 最大 updatedAt)。
+// updatedAt 由 Note.preUpdate 在每次修改时刷新；统一截断到毫秒，保证内存中的实体与数据库读出的值一致
+public final class NoteETags {
+
+    private NoteETags() {}
+
+    public static String forNote(Note note) {
+        return forNote(note.getId(), note.getUpdatedAt());
+    }
+
+    public static String forNote(Long id, LocalDateTime updatedAt) {
+        return "\"" + id + "-" + toMillis(updatedAt) + "\"";
+    }
+
+    public static String forCollection(long count, LocalDateTime maxUpdatedAt) {
+        return "\"c" + count + "-" + toMillis(maxUpdatedAt) + "\"";
+    }
+
+    // 判断 If-None-Match / If-Match 头是否匹配给定 ETag（支持逗号分隔的多个值、W/ 前缀和 *）
+    public static boolean matches(String header, String etag) {
+        if (header == null || header.isBlank()) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*")) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time != null ? time.toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+    }
+}
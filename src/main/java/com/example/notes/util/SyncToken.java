@@ -0,0 +1,41 @@
+package com.example.notes.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// 增量同步令牌：(seq, horizon)。seq 为客户端已看到的最大变更序号；
+// horizon 为客户端数据完整的时间点，早于保留期的令牌对应的变更可能已被清理，需要全量重新同步。
+// 对外以 Base64URL 编码的不透明字符串传递
+public final class SyncToken {
+
+    private final long seq;
+    private final LocalDateTime horizon;
+
+    public SyncToken(long seq, LocalDateTime horizon) {
+        this.seq = seq;
+        this.horizon = horizon;
+    }
+
+    public long getSeq() { return seq; }
+    public LocalDateTime getHorizon() { return horizon; }
+
+    public String encode() {
+        String raw = seq + "|" + horizon;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SyncToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0) {
+                throw new IllegalArgumentException("Invalid sync token");
+            }
+            return new SyncToken(Long.parseLong(raw.substring(0, sep)), LocalDateTime.parse(raw.substring(sep + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid sync token");
+        }
+    }
+}
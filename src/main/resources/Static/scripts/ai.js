@@ -133,14 +133,11 @@ const AI = {
             this.addChatMessage(conversationDiv, question, 'user');
             conversationDiv.style.display = 'block';
 
-            // 获取笔记内容
-            const noteContent = document.querySelector(SELECTORS.displayContent).textContent;
-
             // 显示AI思考状态
             const thinkingMessageId = this.addThinkingMessage(conversationDiv);
 
             // 调用AI API
-            const aiResponse = await API.chatWithAI(question, noteContent);
+            const aiResponse = await API.chatWithAI(question, noteId);
 
             // 移除思考消息
             this.removeThinkingMessage(conversationDiv, thinkingMessageId);
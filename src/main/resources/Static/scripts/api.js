@@ -340,12 +340,12 @@ const API = {
     /**
      * AI对话
      * @param {string} question - 用户问题
-     * @param {string} noteContent - 笔记内容
+     * @param {number|string} noteId - 笔记ID，服务端按ID读取笔记内容
      */
-    async chatWithAI(question, noteContent) {
+    async chatWithAI(question, noteId) {
         const requestData = {
             question: question.trim(),
-            noteContent: noteContent.trim()
+            noteId: Number(noteId)
         };
 
         try {
@@ -261,7 +261,8 @@ const App = {
             `<span class="tag" style="background: var(--text-secondary);">+${moreTagsCount}</span>` : '';
 
         // 处理内容截断和关键词高亮
-        let displayContent = UI.truncateText(note.content, 150);
+        // 列表接口只返回正文预览（contentPreview），完整正文在详情接口中
+        let displayContent = UI.truncateText(note.contentPreview ?? note.content ?? '', 150);
         if (this.state.filters.keyword) {
             displayContent = UI.highlightKeyword(displayContent, this.state.filters.keyword);
         }
@@ -0,0 +1,143 @@
+package com.example.notes.service;
+
+import com.example.notes.dto.AIRequest;
+import com.example.notes.exception.AIServiceException;
+import com.example.notes.search.ContextSelector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// 单飞合并：相同缓存键的并发请求只触发一次上游调用，结果和失败都传递给所有等待者
+class AIChatServiceTest {
+
+    private static final int CALLERS = 16;
+
+    private GeminiClient geminiClient;
+    private CompletableFuture<String> upstream;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        geminiClient = mock(GeminiClient.class);
+        upstream = new CompletableFuture<>();
+        when(geminiClient.getModel()).thenReturn("test-model");
+        // 上游调用一直挂起，直到测试手动完成，保证所有请求都在调用进行中到达
+        when(geminiClient.generateContent(anyString())).thenReturn(upstream);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private AIChatService service(int maxWaiters) {
+        AIAnswerCache cache = new AIAnswerCache(null, null, 1000, Duration.ofMinutes(10), false);
+        return new AIChatService(geminiClient, cache, null, new ContextSelector(1500, 400), maxWaiters);
+    }
+
+    private static AIRequest request() {
+        AIRequest request = new AIRequest();
+        request.setNoteContent("递归与动态规划");
+        request.setQuestion("有什么区别？");
+        return request;
+    }
+
+    // 所有线程同时发起相同的请求，返回各自拿到的 future
+    private List<CompletableFuture<String>> concurrentChats(AIChatService service, int callers) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CompletableFuture<String>>> submitted = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            submitted.add(executor.submit(() -> {
+                start.await();
+                return service.chat(service.prepare(1L, request()));
+            }));
+        }
+        start.countDown();
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (Future<CompletableFuture<String>> future : submitted) {
+            results.add(future.get(5, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneUpstreamCall() throws Exception {
+        AIChatService service = service(100);
+
+        List<CompletableFuture<String>> results = concurrentChats(service, CALLERS);
+        verify(geminiClient, times(1)).generateContent(anyString());
+        assertThat(results).noneMatch(CompletableFuture::isDone);
+
+        upstream.complete("answer");
+        for (CompletableFuture<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("answer");
+        }
+
+        // 之后的相同请求直接命中缓存
+        assertThat(service.chat(service.prepare(1L, request())).get(5, TimeUnit.SECONDS)).isEqualTo("answer");
+        verify(geminiClient, times(1)).generateContent(anyString());
+    }
+
+    @Test
+    void upstreamFailureIsPropagatedToAllWaiters() throws Exception {
+        AIChatService service = service(100);
+
+        List<CompletableFuture<String>> results = concurrentChats(service, CALLERS);
+        verify(geminiClient, times(1)).generateContent(anyString());
+
+        upstream.completeExceptionally(new AIServiceException("upstream failed"));
+        for (CompletableFuture<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(AIServiceException.class)
+                    .hasRootCauseMessage("upstream failed");
+        }
+
+        // 失败的回答不缓存，飞行记录已移除，下一次请求重新调用上游
+        when(geminiClient.generateContent(anyString())).thenReturn(CompletableFuture.completedFuture("retry"));
+        assertThat(service.chat(service.prepare(1L, request())).get(5, TimeUnit.SECONDS)).isEqualTo("retry");
+        verify(geminiClient, times(2)).generateContent(anyString());
+    }
+
+    @Test
+    void waitersBeyondLimitAreRejected() throws Exception {
+        AIChatService service = service(2);
+
+        // 1 个发起者 + 2 个等待者
+        List<CompletableFuture<String>> accepted = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            accepted.add(service.chat(service.prepare(1L, request())));
+        }
+        CompletableFuture<String> rejected = service.chat(service.prepare(1L, request()));
+
+        assertThatThrownBy(() -> rejected.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(AIServiceException.class)
+                .hasRootCauseMessage("Too many requests waiting for the same AI answer");
+        verify(geminiClient, times(1)).generateContent(anyString());
+
+        upstream.complete("answer");
+        for (CompletableFuture<String> result : accepted) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("answer");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.notes.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 半开状态只由试探调用决定：打开之前发出、之后才结束的调用结果被忽略
+class CircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+
+    // 窗口 2 次、失败率 50% 即打开；打开时间为 0，下一次 tryAcquire 立即进入半开
+    private static CircuitBreaker breaker() {
+        return new CircuitBreaker(2, 2, 0.5, Duration.ofSeconds(1), Duration.ZERO);
+    }
+
+    private static void open(CircuitBreaker breaker) {
+        breaker.onFailure(breaker.tryAcquire());
+        breaker.onFailure(breaker.tryAcquire());
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void staleFailureDoesNotReopenHalfOpenBreaker() {
+        CircuitBreaker breaker = breaker();
+        long stale = breaker.tryAcquire();
+        open(breaker);
+
+        long trial = breaker.tryAcquire();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        // 打开前发出的慢调用此时才超时
+        breaker.onFailure(stale);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.REJECTED);
+
+        breaker.onSuccess(trial, FAST);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void staleSuccessDoesNotCloseHalfOpenBreaker() {
+        CircuitBreaker breaker = breaker();
+        long stale = breaker.tryAcquire();
+        open(breaker);
+
+        long trial = breaker.tryAcquire();
+        breaker.onSuccess(stale, FAST);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        breaker.onFailure(trial);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void outcomesFromBeforeClosingAreNotCountedInNewWindow() {
+        CircuitBreaker breaker = breaker();
+        long stale = breaker.tryAcquire();
+        open(breaker);
+        breaker.onSuccess(breaker.tryAcquire(), FAST);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        breaker.onFailure(stale);
+        breaker.onFailure(breaker.tryAcquire());
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.snapshot()).containsEntry("windowFailures", 1);
+    }
+}